@@ -1,15 +1,17 @@
 -- PostgreSQL schema for E-Commerce Inventory & Dynamic Pricing API
 -- Users
+CREATE SEQUENCE users_id_seq INCREMENT BY 50;
 CREATE TABLE users (
-    id SERIAL PRIMARY KEY,
+    id INTEGER PRIMARY KEY DEFAULT nextval('users_id_seq'),
     email VARCHAR(255) UNIQUE NOT NULL,
     password VARCHAR(255) NOT NULL,
     tier VARCHAR(10) NOT NULL CHECK (tier IN ('BRONZE', 'SILVER', 'GOLD'))
 );
 
 -- Categories (hierarchical)
+CREATE SEQUENCE categories_id_seq INCREMENT BY 50;
 CREATE TABLE categories (
-    id SERIAL PRIMARY KEY,
+    id INTEGER PRIMARY KEY DEFAULT nextval('categories_id_seq'),
     name VARCHAR(255) NOT NULL,
     slug VARCHAR(255) UNIQUE NOT NULL,
     parent_id INTEGER REFERENCES categories(id) ON DELETE SET NULL
@@ -17,30 +19,37 @@ CREATE TABLE categories (
 
 -- Products
 
+CREATE SEQUENCE products_id_seq INCREMENT BY 50;
 CREATE TABLE products (
-    id SERIAL PRIMARY KEY,
+    id INTEGER PRIMARY KEY DEFAULT nextval('products_id_seq'),
     name VARCHAR(255) NOT NULL,
     slug VARCHAR(255) UNIQUE NOT NULL,
     description TEXT,
     base_price DECIMAL(12,2) NOT NULL,
     status VARCHAR(10) NOT NULL CHECK (status IN ('ACTIVE', 'ARCHIVED')),
-    category_id INTEGER REFERENCES categories(id)
+    category_id INTEGER REFERENCES categories(id),
+    version BIGINT NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP NOT NULL DEFAULT NOW()
 );
 
 -- Variants
+CREATE SEQUENCE variants_id_seq INCREMENT BY 50;
 CREATE TABLE variants (
-    id SERIAL PRIMARY KEY,
+    id INTEGER PRIMARY KEY DEFAULT nextval('variants_id_seq'),
     sku VARCHAR(64) UNIQUE NOT NULL,
     title VARCHAR(255) NOT NULL,
     stock_quantity INTEGER NOT NULL,
     reserved_quantity INTEGER NOT NULL DEFAULT 0,
     price_adjustment DECIMAL(12,2) DEFAULT 0,
-    product_id INTEGER REFERENCES products(id)
+    product_id INTEGER REFERENCES products(id),
+    version BIGINT NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP NOT NULL DEFAULT NOW()
 );
 
 -- Pricing Rules
+CREATE SEQUENCE pricing_rules_id_seq INCREMENT BY 50;
 CREATE TABLE pricing_rules (
-    id SERIAL PRIMARY KEY,
+    id INTEGER PRIMARY KEY DEFAULT nextval('pricing_rules_id_seq'),
     type VARCHAR(20) NOT NULL,
     min_quantity INTEGER,
     percentage DECIMAL(5,2),
@@ -53,19 +62,37 @@ CREATE TABLE pricing_rules (
     end_at TIMESTAMP,
     usage_limit INTEGER,
     usage_per_user INTEGER,
-    active BOOLEAN NOT NULL DEFAULT TRUE
+    active BOOLEAN NOT NULL DEFAULT TRUE,
+    -- DEMAND rules: sales window; DEMAND/SCARCITY: band [threshold_min, threshold_max) of the measured level
+    window_minutes INTEGER,
+    threshold_min INTEGER,
+    threshold_max INTEGER
+);
+
+-- Per-user usage counters for limited pricing rules
+CREATE SEQUENCE pricing_rule_usages_id_seq INCREMENT BY 50;
+CREATE TABLE pricing_rule_usages (
+    id INTEGER PRIMARY KEY DEFAULT nextval('pricing_rule_usages_id_seq'),
+    rule_id INTEGER NOT NULL REFERENCES pricing_rules(id),
+    user_id INTEGER REFERENCES users(id),
+    used_count BIGINT NOT NULL DEFAULT 0,
+    UNIQUE (rule_id, user_id)
 );
 
 -- Carts
+CREATE SEQUENCE carts_id_seq INCREMENT BY 50;
 CREATE TABLE carts (
-    id SERIAL PRIMARY KEY,
+    id INTEGER PRIMARY KEY DEFAULT nextval('carts_id_seq'),
     user_id INTEGER REFERENCES users(id),
-    status VARCHAR(15) NOT NULL CHECK (status IN ('ACTIVE', 'CHECKED_OUT', 'EXPIRED'))
+    status VARCHAR(15) NOT NULL CHECK (status IN ('ACTIVE', 'CHECKED_OUT', 'EXPIRED')),
+    -- Last change to the cart or its items; ACTIVE carts idle past cart-expiry.idle-minutes are expired
+    updated_at TIMESTAMP NOT NULL DEFAULT NOW()
 );
 
 -- Cart Items
+CREATE SEQUENCE cart_items_id_seq INCREMENT BY 50;
 CREATE TABLE cart_items (
-    id SERIAL PRIMARY KEY,
+    id INTEGER PRIMARY KEY DEFAULT nextval('cart_items_id_seq'),
     cart_id INTEGER REFERENCES carts(id),
     variant_id INTEGER REFERENCES variants(id),
     quantity INTEGER NOT NULL,
@@ -76,8 +103,9 @@ CREATE TABLE cart_items (
 );
 
 -- Reservations
+CREATE SEQUENCE reservations_id_seq INCREMENT BY 50;
 CREATE TABLE reservations (
-    id SERIAL PRIMARY KEY,
+    id INTEGER PRIMARY KEY DEFAULT nextval('reservations_id_seq'),
     variant_id INTEGER REFERENCES variants(id),
     cart_item_id INTEGER REFERENCES cart_items(id),
     quantity INTEGER NOT NULL,
@@ -86,12 +114,56 @@ CREATE TABLE reservations (
 );
 
 -- Orders
+CREATE SEQUENCE orders_id_seq INCREMENT BY 50;
 CREATE TABLE orders (
-    id SERIAL PRIMARY KEY,
+    id INTEGER PRIMARY KEY DEFAULT nextval('orders_id_seq'),
     cart_id INTEGER REFERENCES carts(id),
-    total DECIMAL(12,2) NOT NULL
+    total DECIMAL(12,2) NOT NULL,
+    version BIGINT NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP NOT NULL DEFAULT NOW()
 );
 
+-- ID sequences step by 50 to match the entities' pooled allocationSize, so Hibernate can assign IDs
+-- in memory and batch inserts. Raw SQL inserts can still rely on the column default.
+ALTER SEQUENCE users_id_seq OWNED BY users.id;
+ALTER SEQUENCE categories_id_seq OWNED BY categories.id;
+ALTER SEQUENCE products_id_seq OWNED BY products.id;
+ALTER SEQUENCE variants_id_seq OWNED BY variants.id;
+ALTER SEQUENCE pricing_rules_id_seq OWNED BY pricing_rules.id;
+ALTER SEQUENCE pricing_rule_usages_id_seq OWNED BY pricing_rule_usages.id;
+ALTER SEQUENCE carts_id_seq OWNED BY carts.id;
+ALTER SEQUENCE cart_items_id_seq OWNED BY cart_items.id;
+ALTER SEQUENCE reservations_id_seq OWNED BY reservations.id;
+ALTER SEQUENCE orders_id_seq OWNED BY orders.id;
+
 -- Indexes for performance
 CREATE INDEX idx_variant_stock ON variants(stock_quantity, reserved_quantity);
 CREATE INDEX idx_reservation_expiry ON reservations(expires_at, released);
+CREATE INDEX idx_products_updated_at ON products(updated_at, id);
+CREATE INDEX idx_variants_updated_at ON variants(updated_at, id);
+CREATE INDEX idx_orders_updated_at ON orders(updated_at, id);
+CREATE INDEX idx_carts_user_status ON carts(user_id, status);
+CREATE INDEX idx_carts_active_updated_at ON carts(updated_at) WHERE status = 'ACTIVE';
+CREATE INDEX idx_cart_items_cart ON cart_items(cart_id);
+CREATE INDEX idx_reservations_cart_item ON reservations(cart_item_id);
+
+-- Upgrading a database created with SERIAL ids:
+--   ALTER SEQUENCE <table>_id_seq INCREMENT BY 50;   -- for each table above
+--   CREATE SEQUENCE pricing_rule_usages_id_seq ... / CREATE TABLE pricing_rule_usages ... if it is missing
+-- Hibernate validates the increment at startup and refuses to start while it differs from allocationSize.
+-- Databases created before the version-based ETags also need the optimistic locking columns:
+--   ALTER TABLE products ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+--   ALTER TABLE variants ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+--   ALTER TABLE orders ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+-- and, before the incremental exports, the updated_at columns and the idx_*_updated_at indexes above (build the
+-- indexes CONCURRENTLY on a live table):
+--   ALTER TABLE products ADD COLUMN updated_at TIMESTAMP NOT NULL DEFAULT NOW();
+--   ALTER TABLE variants ADD COLUMN updated_at TIMESTAMP NOT NULL DEFAULT NOW();
+--   ALTER TABLE orders ADD COLUMN updated_at TIMESTAMP NOT NULL DEFAULT NOW();
+--   CREATE INDEX CONCURRENTLY idx_products_updated_at ON products(updated_at, id);  -- likewise variants, orders
+-- Databases created before the DEMAND/SCARCITY pricing rules also need:
+--   ALTER TABLE pricing_rules ADD COLUMN window_minutes INTEGER, ADD COLUMN threshold_min INTEGER,
+--     ADD COLUMN threshold_max INTEGER;
+-- and, before the cart expiry job, the carts.updated_at column and the cart indexes above (CONCURRENTLY
+-- on a live table):
+--   ALTER TABLE carts ADD COLUMN updated_at TIMESTAMP NOT NULL DEFAULT NOW();
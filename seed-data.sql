@@ -1,42 +1,52 @@
 -- Users
-INSERT INTO users (email, password, tier) VALUES
-  ('alice@example.com', '$2b$10$hash1', 'BRONZE'),
-  ('bob@example.com', '$2b$10$hash2', 'SILVER'),
-  ('carol@example.com', '$2b$10$hash3', 'GOLD');
+INSERT INTO users (id, email, password, tier) VALUES
+  (1, 'alice@example.com', '$2b$10$hash1', 'BRONZE'),
+  (2, 'bob@example.com', '$2b$10$hash2', 'SILVER'),
+  (3, 'carol@example.com', '$2b$10$hash3', 'GOLD');
 
 -- Categories
-INSERT INTO categories (name, slug) VALUES
-  ('Electronics', 'electronics'),
-  ('Clothing', 'clothing');
+INSERT INTO categories (id, name, slug) VALUES
+  (1, 'Electronics', 'electronics'),
+  (2, 'Clothing', 'clothing');
 
 -- Products
-INSERT INTO products (name, slug, description, base_price, status, category_id) VALUES
-  ('Smartphone', 'smartphone', 'Latest model', 699.99, 'ACTIVE', 1),
-  ('T-Shirt', 't-shirt', '100% cotton', 19.99, 'ACTIVE', 2);
+INSERT INTO products (id, name, slug, description, base_price, status, category_id) VALUES
+  (1, 'Smartphone', 'smartphone', 'Latest model', 699.99, 'ACTIVE', 1),
+  (2, 'T-Shirt', 't-shirt', '100% cotton', 19.99, 'ACTIVE', 2);
 
 -- Variants
-INSERT INTO variants (sku, title, stock_quantity, reserved_quantity, price_adjustment, product_id) VALUES
-  ('SM123-BLK', 'Black', 50, 0, 0, 1),
-  ('SM123-WHT', 'White', 30, 0, 0, 1),
-  ('TS-M', 'Medium', 100, 0, 0, 2),
-  ('TS-L', 'Large', 80, 0, 0, 2);
+INSERT INTO variants (id, sku, title, stock_quantity, reserved_quantity, price_adjustment, product_id) VALUES
+  (1, 'SM123-BLK', 'Black', 50, 0, 0, 1),
+  (2, 'SM123-WHT', 'White', 30, 0, 0, 1),
+  (3, 'TS-M', 'Medium', 100, 0, 0, 2),
+  (4, 'TS-L', 'Large', 80, 0, 0, 2);
 
 -- Pricing Rules
-INSERT INTO pricing_rules (type, min_quantity, percentage, flat_amount, user_tier, promo_code, target_type, target_id, start_at, end_at, usage_limit, usage_per_user, active) VALUES
-  ('SEASONAL', NULL, 10.0, NULL, NULL, NULL, 'PRODUCT', 1, NOW(), NOW() + INTERVAL '30 days', NULL, NULL, TRUE),
-  ('BULK', 10, 5.0, NULL, NULL, NULL, 'PRODUCT', 1, NULL, NULL, NULL, NULL, TRUE),
-  ('USER_TIER', NULL, NULL, 15.0, 'GOLD', NULL, 'PRODUCT', 1, NULL, NULL, NULL, NULL, TRUE),
-  ('PROMO', NULL, NULL, 20.0, NULL, 'PROMO2025', 'PRODUCT', 1, NULL, NULL, NULL, NULL, TRUE);
+INSERT INTO pricing_rules (id, type, min_quantity, percentage, flat_amount, user_tier, promo_code, target_type, target_id, start_at, end_at, usage_limit, usage_per_user, active) VALUES
+  (1, 'SEASONAL', NULL, 10.0, NULL, NULL, NULL, 'PRODUCT', 1, NOW(), NOW() + INTERVAL '30 days', NULL, NULL, TRUE),
+  (2, 'BULK', 10, 5.0, NULL, NULL, NULL, 'PRODUCT', 1, NULL, NULL, NULL, NULL, TRUE),
+  (3, 'USER_TIER', NULL, NULL, 15.0, 'GOLD', NULL, 'PRODUCT', 1, NULL, NULL, NULL, NULL, TRUE),
+  (4, 'PROMO', NULL, NULL, 20.0, NULL, 'PROMO2025', 'PRODUCT', 1, NULL, NULL, NULL, NULL, TRUE);
 
 -- Carts
-INSERT INTO carts (user_id, status) VALUES (1, 'ACTIVE'), (2, 'ACTIVE');
+INSERT INTO carts (id, user_id, status) VALUES (1, 1, 'ACTIVE'), (2, 2, 'ACTIVE');
 
 -- Cart Items
-INSERT INTO cart_items (cart_id, variant_id, quantity, unit_price, discounts, subtotal, snapshot_at) VALUES
-  (1, 1, 2, 699.99, '{"seasonal": 70}', 1259.98, NOW()),
-  (2, 3, 5, 19.99, '{"bulk": 5}', 94.95, NOW());
+INSERT INTO cart_items (id, cart_id, variant_id, quantity, unit_price, discounts, subtotal, snapshot_at) VALUES
+  (1, 1, 1, 2, 699.99, '{"seasonal": 70}', 1259.98, NOW()),
+  (2, 2, 3, 5, 19.99, '{"bulk": 5}', 94.95, NOW());
 
 -- Reservations
-INSERT INTO reservations (variant_id, cart_item_id, quantity, expires_at, released) VALUES
-  (1, 1, 2, NOW() + INTERVAL '10 minutes', FALSE),
-  (3, 2, 5, NOW() + INTERVAL '10 minutes', FALSE);
+INSERT INTO reservations (id, variant_id, cart_item_id, quantity, expires_at, released) VALUES
+  (1, 1, 1, 2, NOW() + INTERVAL '10 minutes', FALSE),
+  (2, 3, 2, 5, NOW() + INTERVAL '10 minutes', FALSE);
+
+-- Seed rows use fixed ids; move each sequence past them
+SELECT setval('users_id_seq', (SELECT MAX(id) FROM users));
+SELECT setval('categories_id_seq', (SELECT MAX(id) FROM categories));
+SELECT setval('products_id_seq', (SELECT MAX(id) FROM products));
+SELECT setval('variants_id_seq', (SELECT MAX(id) FROM variants));
+SELECT setval('pricing_rules_id_seq', (SELECT MAX(id) FROM pricing_rules));
+SELECT setval('carts_id_seq', (SELECT MAX(id) FROM carts));
+SELECT setval('cart_items_id_seq', (SELECT MAX(id) FROM cart_items));
+SELECT setval('reservations_id_seq', (SELECT MAX(id) FROM reservations));
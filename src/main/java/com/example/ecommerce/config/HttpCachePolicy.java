@@ -0,0 +1,50 @@
+package com.example.ecommerce.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Cache-Control values per resource type (http.cache-control.&lt;type&gt; in application.properties)
+ * and the version-based ETags used by the read endpoints.
+ */
+@Component
+@ConfigurationProperties(prefix = "http")
+public class HttpCachePolicy {
+    private static final String DEFAULT_CACHE_CONTROL = "no-cache";
+
+    private Map<String, String> cacheControl = new HashMap<>();
+
+    public Map<String, String> getCacheControl() {
+        return cacheControl;
+    }
+
+    public void setCacheControl(Map<String, String> cacheControl) {
+        this.cacheControl = cacheControl;
+    }
+
+    public String cacheControlFor(String resourceType) {
+        return cacheControl.getOrDefault(resourceType, DEFAULT_CACHE_CONTROL);
+    }
+
+    /**
+     * Builds a strong ETag from the resource type, id and entity version(s), so it changes on every write
+     * without hashing the response body.
+     */
+    public static String versionTag(String resourceType, Long id, Long... versions) {
+        StringBuilder sb = new StringBuilder(resourceType).append('-').append(id);
+        for (Long version : versions) {
+            sb.append('.').append(version != null ? version : 0L);
+        }
+        return "\"" + sb + "\"";
+    }
+
+    // For composite resources whose version set is unbounded (e.g. a product and all of its variants)
+    public static String hashedTag(String resourceType, Object id, String versionKey) {
+        return "\"" + resourceType + "-" + id + "-"
+            + DigestUtils.md5DigestAsHex(versionKey.getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+}
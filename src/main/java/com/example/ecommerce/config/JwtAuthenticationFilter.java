@@ -1,9 +1,15 @@
 package com.example.ecommerce.config;
 
 import com.example.ecommerce.service.JwtService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
@@ -14,13 +20,60 @@ import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Collections;
+import java.util.Date;
+import java.util.List;
 
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
     @Autowired
     private JwtService jwtService;
 
+    @Value("${jwt.cache.max-size:100000}")
+    private long cacheMaxSize;
+
+    // Verified tokens keyed by SHA-256 of the token; each entry expires at the token's exp claim
+    private Cache<String, VerifiedToken> verifiedTokens;
+
+    private static final class VerifiedToken {
+        final String subject;
+        final List<GrantedAuthority> authorities;
+        final long expiresAtMillis;
+
+        VerifiedToken(String subject, String tier, long expiresAtMillis) {
+            this.subject = subject;
+            this.authorities = Collections.singletonList(new SimpleGrantedAuthority(tier));
+            this.expiresAtMillis = expiresAtMillis;
+        }
+    }
+
+    @PostConstruct
+    void init() {
+        verifiedTokens = Caffeine.newBuilder()
+            .maximumSize(cacheMaxSize)
+            .expireAfter(new Expiry<String, VerifiedToken>() {
+                @Override
+                public long expireAfterCreate(String key, VerifiedToken token, long currentTime) {
+                    return Math.max(0, token.expiresAtMillis - System.currentTimeMillis()) * 1_000_000L;
+                }
+
+                @Override
+                public long expireAfterUpdate(String key, VerifiedToken token, long currentTime, long currentDuration) {
+                    return expireAfterCreate(key, token, currentTime);
+                }
+
+                @Override
+                public long expireAfterRead(String key, VerifiedToken token, long currentTime, long currentDuration) {
+                    return currentDuration;
+                }
+            })
+            .build();
+    }
+
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
@@ -28,17 +81,45 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         if (header != null && header.startsWith("Bearer ")) {
             String token = header.substring(7);
             try {
-                Claims claims = jwtService.validateToken(token);
-                String email = claims.getSubject();
-                String tier = claims.get("tier", String.class);
-                UsernamePasswordAuthenticationToken auth = new UsernamePasswordAuthenticationToken(
-                        email, null, Collections.singletonList(new SimpleGrantedAuthority(tier)));
-                auth.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                SecurityContextHolder.getContext().setAuthentication(auth);
+                VerifiedToken verified = verify(token);
+                if (verified != null) {
+                    UsernamePasswordAuthenticationToken auth = new UsernamePasswordAuthenticationToken(
+                            verified.subject, null, verified.authorities);
+                    auth.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                    SecurityContextHolder.getContext().setAuthentication(auth);
+                }
             } catch (Exception e) {
                 // Invalid token, do nothing (request will be rejected by security config)
             }
         }
         filterChain.doFilter(request, response);
     }
+
+    // Only a successful signature check populates the cache; failures are never cached
+    private VerifiedToken verify(String token) {
+        String key = sha256(token);
+        VerifiedToken cached = verifiedTokens.getIfPresent(key);
+        if (cached != null) {
+            return cached.expiresAtMillis > System.currentTimeMillis() ? cached : null;
+        }
+        Claims claims = jwtService.validateToken(token);
+        String tier = claims.get("tier", String.class);
+        Date exp = claims.getExpiration();
+        if (exp == null) {
+            // Tokens without exp are not issued by JwtService; verify them every time rather than cache forever
+            return new VerifiedToken(claims.getSubject(), tier, Long.MAX_VALUE);
+        }
+        VerifiedToken verified = new VerifiedToken(claims.getSubject(), tier, exp.getTime());
+        verifiedTokens.put(key, verified);
+        return verified;
+    }
+
+    private static String sha256(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
 }
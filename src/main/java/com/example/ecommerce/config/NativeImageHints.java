@@ -0,0 +1,81 @@
+package com.example.ecommerce.config;
+
+import com.example.ecommerce.entity.Cart;
+import com.example.ecommerce.entity.CartItem;
+import com.example.ecommerce.entity.Category;
+import com.example.ecommerce.entity.Money;
+import com.example.ecommerce.entity.MoneyConverter;
+import com.example.ecommerce.entity.Order;
+import com.example.ecommerce.entity.PricingRule;
+import com.example.ecommerce.entity.PricingRuleUsage;
+import com.example.ecommerce.entity.Product;
+import com.example.ecommerce.entity.Reservation;
+import com.example.ecommerce.entity.User;
+import com.example.ecommerce.entity.Variant;
+import com.example.ecommerce.service.CatalogImportService;
+import com.example.ecommerce.service.CategoryTreeCache;
+import com.example.ecommerce.service.PricingEngine;
+import com.example.ecommerce.service.ProductSearchIndex;
+import com.example.ecommerce.service.StockAdjustmentService;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+
+/**
+ * Reflection, proxy and resource hints for the native image (mvn -Pnative package). Spring AOT covers the bean
+ * wiring, the Spring Security filter chain and the JPA metamodel; this adds what is only looked up at runtime.
+ */
+public class NativeImageHints implements RuntimeHintsRegistrar {
+    private final BindingReflectionHintsRegistrar bindingRegistrar = new BindingReflectionHintsRegistrar();
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        // JSON bodies: entities are (de)serialized directly, and ResponseEntity<Object> or nested public-field
+        // types are not inferred from the controller signatures
+        bindingRegistrar.registerReflectionHints(hints.reflection(),
+            Cart.class, CartItem.class, Category.class, Money.class, Order.class, PricingRule.class,
+            PricingRuleUsage.class, Product.class, Reservation.class, User.class, Variant.class,
+            PricingEngine.PriceResult.class, CategoryTreeCache.CategoryNode.class,
+            ProductSearchIndex.SearchResult.class, ProductSearchIndex.Hit.class,
+            CatalogImportService.ImportJob.class, CatalogImportService.RowError.class,
+            StockAdjustmentService.StockAdjustment.class, StockAdjustmentService.StockConflict.class,
+            StockAdjustmentService.StockAdjustmentResult.class);
+        // Auto-applied converter, instantiated by Hibernate
+        hints.reflection().registerType(MoneyConverter.class, MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS,
+            MemberCategory.INVOKE_PUBLIC_METHODS);
+
+        // JJWT 0.11 creates its implementation classes by name and finds the Jackson (de)serializer through
+        // ServiceLoader
+        for (String type : new String[] {
+                "io.jsonwebtoken.impl.DefaultJwtBuilder", "io.jsonwebtoken.impl.DefaultJwtParserBuilder",
+                "io.jsonwebtoken.impl.DefaultJwtParser", "io.jsonwebtoken.impl.DefaultClaims",
+                "io.jsonwebtoken.impl.DefaultHeader", "io.jsonwebtoken.impl.DefaultJwsHeader",
+                "io.jsonwebtoken.impl.compression.DeflateCompressionCodec",
+                "io.jsonwebtoken.impl.compression.GzipCompressionCodec",
+                "io.jsonwebtoken.jackson.io.JacksonSerializer", "io.jsonwebtoken.jackson.io.JacksonDeserializer"}) {
+            hints.reflection().registerType(TypeReference.of(type), MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS);
+        }
+        hints.resources().registerPattern("META-INF/services/io.jsonwebtoken.io.*");
+
+        // Second-level cache: region factory, caching provider and copier are named in configuration
+        for (String type : new String[] {
+                "org.hibernate.cache.jcache.internal.JCacheRegionFactory",
+                "com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider",
+                "com.github.benmanes.caffeine.jcache.copy.JavaSerializationCopier"}) {
+            hints.reflection().registerType(TypeReference.of(type), MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS);
+        }
+        hints.resources().registerPattern("hibernate-jcache.conf").registerPattern("reference.conf");
+
+        // JDK proxies created by SqlStatisticsDataSource
+        hints.proxies().registerJdkProxy(Connection.class);
+        hints.proxies().registerJdkProxy(Statement.class);
+        hints.proxies().registerJdkProxy(PreparedStatement.class);
+        hints.proxies().registerJdkProxy(CallableStatement.class);
+    }
+}
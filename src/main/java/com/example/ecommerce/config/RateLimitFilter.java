@@ -0,0 +1,63 @@
+package com.example.ecommerce.config;
+
+import com.example.ecommerce.service.RateLimiter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Applies the per-user token buckets from {@link RateLimitProperties}. Runs after JWT authentication and
+ * answers 429 with Retry-After before the request reaches a controller.
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+    @Autowired
+    private RateLimitProperties properties;
+    @Autowired
+    private RateLimiter rateLimiter;
+
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (properties.isEnabled() && auth != null && auth.getAuthorities() != null) {
+            String tier = auth.getAuthorities().stream().findFirst().map(GrantedAuthority::getAuthority).orElse(null);
+            String path = request.getServletPath();
+            for (Map.Entry<String, RateLimitProperties.Rule> entry : properties.getRules().entrySet()) {
+                RateLimitProperties.Rule rule = entry.getValue();
+                if (!matches(rule, request.getMethod(), path)) continue;
+                Integer burst = rule.getBurst().get(tier);
+                Double perSecond = rule.getPerSecond().get(tier);
+                // No limit configured for this tier
+                if (burst == null || perSecond == null) continue;
+                RateLimiter.Decision decision = rateLimiter.tryAcquire(entry.getKey() + ":" + auth.getName(), burst, perSecond);
+                if (!decision.allowed) {
+                    response.setStatus(429);
+                    response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf((decision.retryAfterMillis + 999) / 1000));
+                    response.setContentType("text/plain");
+                    response.getWriter().write("Too many requests");
+                    return;
+                }
+            }
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    private boolean matches(RateLimitProperties.Rule rule, String method, String path) {
+        if (rule.getPath() == null || !pathMatcher.match(rule.getPath(), path)) return false;
+        return rule.getMethods().isEmpty() || rule.getMethods().stream().anyMatch(m -> m.equalsIgnoreCase(method));
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.ecommerce.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Token-bucket limits per endpoint (rate-limit.rules.&lt;name&gt;.* in application.properties). Each user gets
+ * their own bucket per rule, sized by their tier: burst is the bucket capacity, per-second the refill rate.
+ */
+@Component
+@ConfigurationProperties(prefix = "rate-limit")
+public class RateLimitProperties {
+    private boolean enabled = true;
+    private Map<String, Rule> rules = new LinkedHashMap<>();
+
+    public static class Rule {
+        // Ant-style pattern, e.g. /products/*/price
+        private String path;
+        // Empty means every method
+        private List<String> methods = new ArrayList<>();
+        private Map<String, Integer> burst = new HashMap<>();
+        private Map<String, Double> perSecond = new HashMap<>();
+
+        public String getPath() {
+            return path;
+        }
+
+        public void setPath(String path) {
+            this.path = path;
+        }
+
+        public List<String> getMethods() {
+            return methods;
+        }
+
+        public void setMethods(List<String> methods) {
+            this.methods = methods;
+        }
+
+        public Map<String, Integer> getBurst() {
+            return burst;
+        }
+
+        public void setBurst(Map<String, Integer> burst) {
+            this.burst = burst;
+        }
+
+        public Map<String, Double> getPerSecond() {
+            return perSecond;
+        }
+
+        public void setPerSecond(Map<String, Double> perSecond) {
+            this.perSecond = perSecond;
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public Map<String, Rule> getRules() {
+        return rules;
+    }
+
+    public void setRules(Map<String, Rule> rules) {
+        this.rules = rules;
+    }
+}
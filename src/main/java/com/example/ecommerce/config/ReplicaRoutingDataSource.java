@@ -0,0 +1,205 @@
+package com.example.ecommerce.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Sends connections for read-only transactions to a healthy replica (round robin) and everything else to the
+ * primary. A replica is skipped while it is unreachable or lagging more than maxLag. After a user's own write
+ * commits, that user's reads stay on the primary for maxLag so they see their writes.
+ *
+ * Must sit behind a LazyConnectionDataSourceProxy: the read-only flag of a Spring transaction is only known
+ * after the transaction manager has asked for a connection.
+ *
+ * Caches that are invalidated after a commit must not refill from a replica that has not replayed that commit
+ * yet: they load misses inside {@link #onPrimary}, or evict once more after {@link #getMaxLag()}.
+ */
+public class ReplicaRoutingDataSource extends AbstractDataSource {
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+    private static final String RECENT_WRITER_KEY = "ryw:";
+    private static final ThreadLocal<Boolean> PRIMARY_ONLY = new ThreadLocal<>();
+    // Lag is zero when everything received has been replayed, otherwise the age of the last replayed transaction
+    private static final String LAG_QUERY = "SELECT CASE WHEN NOT pg_is_in_recovery() "
+        + "OR pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 "
+        + "ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()), 0) END";
+
+    private final HikariDataSource primary;
+    private final List<Replica> replicas;
+    private final Duration maxLag;
+    private final StringRedisTemplate redisTemplate;
+    private final AtomicInteger next = new AtomicInteger();
+    // user -> epoch millis until which reads go to the primary; Redis carries the same marker to other nodes
+    private final Map<String, Long> recentWriters = new ConcurrentHashMap<>();
+
+    static final class Replica {
+        final HikariDataSource dataSource;
+        volatile boolean healthy = true;
+        volatile double lagSeconds;
+
+        Replica(HikariDataSource dataSource) {
+            this.dataSource = dataSource;
+        }
+    }
+
+    public ReplicaRoutingDataSource(HikariDataSource primary, List<HikariDataSource> replicas, Duration maxLag,
+                                    StringRedisTemplate redisTemplate) {
+        this.primary = primary;
+        this.replicas = replicas.stream().map(Replica::new).toList();
+        this.maxLag = maxLag;
+        this.redisTemplate = redisTemplate;
+    }
+
+    /**
+     * Runs the work with every connection it opens taken from the primary, read-only or not. Connections already
+     * held by an enclosing transaction are unaffected, so the work should start its own transaction.
+     */
+    public static <T> T onPrimary(Supplier<T> work) {
+        if (Boolean.TRUE.equals(PRIMARY_ONLY.get())) return work.get();
+        PRIMARY_ONLY.set(Boolean.TRUE);
+        try {
+            return work.get();
+        } finally {
+            PRIMARY_ONLY.remove();
+        }
+    }
+
+    public boolean hasReplicas() {
+        return !replicas.isEmpty();
+    }
+
+    /**
+     * @return Longest replay lag a replica may have and still serve reads
+     */
+    public Duration getMaxLag() {
+        return maxLag;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (replicas.isEmpty() || Boolean.TRUE.equals(PRIMARY_ONLY.get())) {
+            return primary.getConnection();
+        }
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            Replica replica = readFromReplica() ? nextHealthyReplica() : null;
+            if (replica != null) {
+                try {
+                    return replica.dataSource.getConnection();
+                } catch (SQLException e) {
+                    markDown(replica, e.getMessage());
+                }
+            }
+        } else if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            rememberWriter();
+        }
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        // Same answer as the primary pool gives (Hikari rejects per-call credentials); never a replica
+        return primary.getConnection(username, password);
+    }
+
+    public void close() {
+        for (Replica replica : replicas) {
+            replica.dataSource.close();
+        }
+    }
+
+    /**
+     * Re-checks reachability and replication lag of every replica.
+     */
+    @Scheduled(fixedDelayString = "${datasource.replica.health-check-interval-ms:2000}")
+    public void checkReplicas() {
+        for (Replica replica : replicas) {
+            try (Connection con = replica.dataSource.getConnection();
+                 Statement st = con.createStatement();
+                 ResultSet rs = st.executeQuery(LAG_QUERY)) {
+                rs.next();
+                replica.lagSeconds = rs.getDouble(1);
+                boolean healthy = replica.lagSeconds * 1000 <= maxLag.toMillis();
+                if (healthy != replica.healthy) {
+                    logger.info("Replica {} is {} (lag {}s)", replica.dataSource.getPoolName(),
+                        healthy ? "back in rotation" : "lagging", replica.lagSeconds);
+                }
+                replica.healthy = healthy;
+            } catch (SQLException e) {
+                markDown(replica, e.getMessage());
+            }
+        }
+    }
+
+    private Replica nextHealthyReplica() {
+        int n = replicas.size();
+        int start = Math.floorMod(next.getAndIncrement(), n);
+        for (int i = 0; i < n; i++) {
+            Replica replica = replicas.get((start + i) % n);
+            if (replica.healthy) return replica;
+        }
+        return null;
+    }
+
+    private void markDown(Replica replica, String reason) {
+        if (replica.healthy) {
+            logger.warn("Replica {} taken out of rotation: {}", replica.dataSource.getPoolName(), reason);
+        }
+        replica.healthy = false;
+    }
+
+    // Read-your-writes: false while the current user has a write younger than maxLag
+    private boolean readFromReplica() {
+        String user = currentUser();
+        if (user == null) return true;
+        Long until = recentWriters.get(user);
+        if (until != null) {
+            if (until > System.currentTimeMillis()) return false;
+            recentWriters.remove(user, until);
+        }
+        try {
+            return !Boolean.TRUE.equals(redisTemplate.hasKey(RECENT_WRITER_KEY + user));
+        } catch (Exception e) {
+            // Without the marker we cannot tell; the primary is always safe
+            return false;
+        }
+    }
+
+    private void rememberWriter() {
+        String user = currentUser();
+        if (user == null || !TransactionSynchronizationManager.isSynchronizationActive()) return;
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                recentWriters.put(user, System.currentTimeMillis() + maxLag.toMillis());
+                try {
+                    redisTemplate.opsForValue().set(RECENT_WRITER_KEY + user, "1", maxLag);
+                } catch (Exception e) {
+                    logger.warn("Failed to publish recent write marker for {}: {}", user, e.getMessage());
+                }
+            }
+        });
+    }
+
+    private static String currentUser() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        return auth != null && auth.isAuthenticated() && !(auth instanceof AnonymousAuthenticationToken) ? auth.getName() : null;
+    }
+}
@@ -2,6 +2,7 @@ package com.example.ecommerce.config;
 
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
@@ -15,6 +16,8 @@ import com.example.ecommerce.config.JwtAuthenticationFilter;
 public class SecurityConfig {
     @Autowired
     private JwtAuthenticationFilter jwtAuthenticationFilter;
+    @Autowired
+    private RateLimitFilter rateLimitFilter;
 
     @Bean
     public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
@@ -24,11 +27,19 @@ public class SecurityConfig {
             .and()
             .authorizeHttpRequests()
                 .requestMatchers("/auth/**", "/swagger-ui.html", "/v3/api-docs/**").permitAll()
+                .requestMatchers("/actuator/health/liveness", "/actuator/health/readiness").permitAll()
+                // Bulk stock sync overwrites inventory; matched before the BRONZE catalog rule below
+                .requestMatchers(HttpMethod.POST, "/variants/stock").hasAnyAuthority("SILVER", "GOLD")
                 .requestMatchers("/products/**", "/categories/**", "/variants/**").hasAnyAuthority("BRONZE", "SILVER", "GOLD")
                 .requestMatchers("/cart/**", "/orders/**").hasAnyAuthority("SILVER", "GOLD")
+                // Exports include every order, so they are at least as restricted as /orders
+                .requestMatchers("/export/**").hasAnyAuthority("SILVER", "GOLD")
+                // Imports rewrite the catalog in bulk
+                .requestMatchers("/import/**").hasAnyAuthority("SILVER", "GOLD")
                 .anyRequest().authenticated()
             .and()
-            .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
+            .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class)
+            .addFilterAfter(rateLimitFilter, JwtAuthenticationFilter.class);
         return http.build();
     }
 }
@@ -0,0 +1,113 @@
+package com.example.ecommerce.config;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * SQL executed by the current thread while a scope is open: statement count, total execution time, and time
+ * spent in explicit row-lock statements (SELECT ... FOR UPDATE/SHARE), which is where lock waits show up.
+ * Filled in by {@link SqlStatisticsDataSource}; a batch counts as one statement. Scopes nest, and an inner
+ * scope's statements also count towards the outer ones.
+ */
+public final class SqlStatistics {
+    private static final ThreadLocal<SqlStatistics> CURRENT = new ThreadLocal<>();
+
+    private final SqlStatistics parent;
+    private int statements;
+    private long nanos;
+    private long lockNanos;
+    private final Map<String, Integer> executionsBySql = new HashMap<>();
+
+    private SqlStatistics(SqlStatistics parent) {
+        this.parent = parent;
+    }
+
+    /**
+     * Opens a scope on the current thread; close it with {@link #stop()} on the same thread.
+     */
+    public static SqlStatistics start() {
+        SqlStatistics statistics = new SqlStatistics(CURRENT.get());
+        CURRENT.set(statistics);
+        return statistics;
+    }
+
+    public void stop() {
+        if (CURRENT.get() != this) {
+            throw new IllegalStateException("SQL statistics scopes must be closed in the order they were opened");
+        }
+        if (parent == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(parent);
+        }
+    }
+
+    /**
+     * Runs action in its own scope and returns what it executed.
+     */
+    public static SqlStatistics capture(Runnable action) {
+        return capture(() -> {
+            action.run();
+            return null;
+        }).statistics;
+    }
+
+    public static <T> Captured<T> capture(Supplier<T> action) {
+        SqlStatistics statistics = start();
+        try {
+            return new Captured<>(action.get(), statistics);
+        } finally {
+            statistics.stop();
+        }
+    }
+
+    public static class Captured<T> {
+        public final T result;
+        public final SqlStatistics statistics;
+
+        Captured(T result, SqlStatistics statistics) {
+            this.result = result;
+            this.statistics = statistics;
+        }
+    }
+
+    static boolean active() {
+        return CURRENT.get() != null;
+    }
+
+    static void record(String sql, long elapsedNanos, boolean locking) {
+        for (SqlStatistics s = CURRENT.get(); s != null; s = s.parent) {
+            s.statements++;
+            s.nanos += elapsedNanos;
+            if (locking) s.lockNanos += elapsedNanos;
+            if (sql != null) s.executionsBySql.merge(sql, 1, Integer::sum);
+        }
+    }
+
+    public int getStatements() {
+        return statements;
+    }
+
+    public Duration getTime() {
+        return Duration.ofNanos(nanos);
+    }
+
+    public Duration getLockTime() {
+        return Duration.ofNanos(lockNanos);
+    }
+
+    /**
+     * Executions per SQL text; the same text executed many times in one request is the usual N+1 signature.
+     */
+    public Map<String, Integer> getExecutionsBySql() {
+        return Collections.unmodifiableMap(executionsBySql);
+    }
+
+    @Override
+    public String toString() {
+        return statements + " statements in " + getTime().toMillis() + " ms (" + getLockTime().toMillis() + " ms locking)";
+    }
+}
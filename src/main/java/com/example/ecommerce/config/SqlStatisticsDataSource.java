@@ -0,0 +1,116 @@
+package com.example.ecommerce.config;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Locale;
+
+/**
+ * Times every statement executed through the wrapped DataSource and reports it to {@link SqlStatistics}.
+ * Covers Hibernate, JdbcTemplate and raw JDBC alike. Threads without an open scope pay one ThreadLocal lookup.
+ */
+public class SqlStatisticsDataSource extends DelegatingDataSource {
+
+    public SqlStatisticsDataSource(DataSource target) {
+        super(target);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrap(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrap(super.getConnection(username, password));
+    }
+
+    private static Connection wrap(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(SqlStatisticsDataSource.class.getClassLoader(),
+            new Class<?>[] { Connection.class }, new ConnectionHandler(connection));
+    }
+
+    static boolean isLocking(String sql) {
+        if (sql == null) return false;
+        String lower = sql.toLowerCase(Locale.ROOT);
+        return lower.contains(" for update") || lower.contains(" for no key update")
+            || lower.contains(" for share") || lower.contains(" for key share");
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static final class ConnectionHandler implements InvocationHandler {
+        private final Connection target;
+
+        ConnectionHandler(Connection target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result = SqlStatisticsDataSource.invoke(target, method, args);
+            String name = method.getName();
+            if (result instanceof CallableStatement && name.equals("prepareCall")) {
+                return wrapStatement(result, CallableStatement.class, (String) args[0]);
+            }
+            if (result instanceof PreparedStatement && name.equals("prepareStatement")) {
+                return wrapStatement(result, PreparedStatement.class, (String) args[0]);
+            }
+            if (result instanceof Statement && name.equals("createStatement")) {
+                return wrapStatement(result, Statement.class, null);
+            }
+            return result;
+        }
+
+        private static Object wrapStatement(Object statement, Class<?> type, String sql) {
+            return Proxy.newProxyInstance(SqlStatisticsDataSource.class.getClassLoader(),
+                new Class<?>[] { type }, new StatementHandler(statement, sql));
+        }
+    }
+
+    private static final class StatementHandler implements InvocationHandler {
+        private final Object target;
+        // Known up front for prepared statements, passed to execute* for plain ones
+        private final String sql;
+        private final boolean locking;
+
+        StatementHandler(Object target, String sql) {
+            this.target = target;
+            this.sql = sql;
+            this.locking = isLocking(sql);
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (!method.getName().startsWith("execute") || !SqlStatistics.active()) {
+                return SqlStatisticsDataSource.invoke(target, method, args);
+            }
+            String executed = sql;
+            boolean lock = locking;
+            if (executed == null && args != null && args.length > 0 && args[0] instanceof String) {
+                executed = (String) args[0];
+                lock = isLocking(executed);
+            }
+            long started = System.nanoTime();
+            try {
+                return SqlStatisticsDataSource.invoke(target, method, args);
+            } finally {
+                SqlStatistics.record(executed, System.nanoTime() - started, lock);
+            }
+        }
+    }
+}
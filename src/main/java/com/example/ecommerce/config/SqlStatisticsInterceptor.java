@@ -0,0 +1,90 @@
+package com.example.ecommerce.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Opens a {@link SqlStatistics} scope per request and publishes it tagged by controller method:
+ * sql.statements (statements per request), sql.time and sql.lock.time. Warns once per endpoint and statement
+ * when a single request repeats the same SQL more than the threshold, the usual sign of an N+1 query.
+ * Only SQL run on the request thread is counted; work handed to other executors is not.
+ */
+@Component
+public class SqlStatisticsInterceptor implements AsyncHandlerInterceptor {
+    private static final Logger logger = LoggerFactory.getLogger(SqlStatisticsInterceptor.class);
+    private static final String ATTRIBUTE = SqlStatisticsInterceptor.class.getName();
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Value("${sql.statistics.repeated-statement-threshold:20}")
+    private int repeatedStatementThreshold;
+
+    private final Map<String, Meters> meters = new ConcurrentHashMap<>();
+    private final Set<String> warned = ConcurrentHashMap.newKeySet();
+
+    private static final class Meters {
+        final DistributionSummary statements;
+        final Timer time;
+        final Timer lockTime;
+
+        Meters(MeterRegistry registry, String endpoint) {
+            statements = DistributionSummary.builder("sql.statements").tag("endpoint", endpoint)
+                .description("SQL statements executed per request").register(registry);
+            time = Timer.builder("sql.time").tag("endpoint", endpoint)
+                .description("Time spent executing SQL per request").register(registry);
+            lockTime = Timer.builder("sql.lock.time").tag("endpoint", endpoint)
+                .description("Time spent in row-locking statements per request").register(registry);
+        }
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (request.getDispatcherType() == DispatcherType.REQUEST && handler instanceof HandlerMethod) {
+            request.setAttribute(ATTRIBUTE, SqlStatistics.start());
+        }
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        finish(request, handler);
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        finish(request, handler);
+    }
+
+    private void finish(HttpServletRequest request, Object handler) {
+        SqlStatistics statistics = (SqlStatistics) request.getAttribute(ATTRIBUTE);
+        if (statistics == null) return;
+        request.removeAttribute(ATTRIBUTE);
+        statistics.stop();
+        HandlerMethod method = (HandlerMethod) handler;
+        String endpoint = method.getBeanType().getSimpleName() + "." + method.getMethod().getName();
+        Meters m = meters.computeIfAbsent(endpoint, e -> new Meters(meterRegistry, e));
+        m.statements.record(statistics.getStatements());
+        m.time.record(statistics.getTime().toNanos(), TimeUnit.NANOSECONDS);
+        m.lockTime.record(statistics.getLockTime().toNanos(), TimeUnit.NANOSECONDS);
+        for (Map.Entry<String, Integer> e : statistics.getExecutionsBySql().entrySet()) {
+            if (e.getValue() > repeatedStatementThreshold && warned.add(endpoint + "|" + e.getKey())) {
+                logger.warn("Possible N+1 in {}: one request executed {} times: {}", endpoint, e.getValue(), e.getKey());
+            }
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.ecommerce.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.aot.AotDetector;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Logs how long the node took to become ready, counted from JVM start. With startup.exit-when-ready=true the
+ * process exits right after, which the cds build profile uses for its training run and startup measurements.
+ */
+@Component
+public class StartupReport {
+    private static final Logger logger = LoggerFactory.getLogger(StartupReport.class);
+
+    @Autowired
+    private ConfigurableApplicationContext context;
+    @Value("${startup.exit-when-ready:false}")
+    private boolean exitWhenReady;
+
+    @EventListener
+    public void onReady(ApplicationReadyEvent event) {
+        logger.info("Ready {} ms after JVM start (context {} ms, AOT {})",
+            ManagementFactory.getRuntimeMXBean().getUptime(), event.getTimeTaken().toMillis(),
+            AotDetector.useGeneratedArtifacts() ? "on" : "off");
+        if (exitWhenReady) {
+            System.exit(SpringApplication.exit(context));
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.ecommerce.config;
+
+import com.example.ecommerce.entity.CartItem;
+import com.example.ecommerce.service.CartService;
+import com.example.ecommerce.service.PricingEngine;
+import com.example.ecommerce.service.ProductDetailCache;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the pricing, cart snapshot and JSON paths with synthetic quotes before the node takes traffic, so the JIT
+ * has compiled them by the first real request. Only reads: quotes are for a sample of active variants, with varied
+ * quantities and tiers, a synthetic user and a promo code that matches nothing, and cart items are never saved.
+ * Spring Boot reports readiness (/actuator/health/readiness) only after application runners return, so the probe
+ * stays OUT_OF_SERVICE until warmup.iterations are done or warmup.max-seconds have passed.
+ */
+@Component
+public class StartupWarmup implements ApplicationRunner {
+    private static final Logger logger = LoggerFactory.getLogger(StartupWarmup.class);
+    // No user or cart has id 0, so per-user rule usage reads as zero
+    private static final Long WARMUP_USER_ID = 0L;
+    private static final Long WARMUP_CART_ID = 0L;
+    private static final String[] TIERS = { "BRONZE", "SILVER", "GOLD" };
+
+    @Autowired
+    private PricingEngine pricingEngine;
+    @Autowired
+    private CartService cartService;
+    @Autowired
+    private ProductDetailCache productDetailCache;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${warmup.enabled:true}")
+    private boolean enabled;
+    @Value("${warmup.iterations:10000}")
+    private int iterations;
+    @Value("${warmup.max-seconds:30}")
+    private long maxSeconds;
+    @Value("${warmup.sample-size:200}")
+    private int sampleSize;
+
+    private volatile boolean stopped;
+
+    @Override
+    public void run(ApplicationArguments args) throws InterruptedException {
+        if (!enabled) return;
+        long started = System.nanoTime();
+        AtomicInteger done = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        // On its own thread so a stuck call cannot hold readiness past the time limit
+        Thread worker = new Thread(() -> warmUp(done, failed), "jit-warmup");
+        worker.setDaemon(true);
+        worker.start();
+        worker.join(TimeUnit.SECONDS.toMillis(maxSeconds));
+        stopped = true;
+        logger.info("JIT warm-up {} after {} of {} iterations ({} failed) in {} ms",
+            worker.isAlive() ? "hit its time limit" : "finished", done.get(), iterations, failed.get(),
+            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+    }
+
+    private void warmUp(AtomicInteger done, AtomicInteger failed) {
+        List<long[]> samples;
+        try {
+            samples = jdbcTemplate.query("SELECT v.product_id, v.id FROM variants v JOIN products p ON p.id = v.product_id "
+                + "WHERE p.status = 'ACTIVE' ORDER BY v.id LIMIT ?", (rs, i) -> new long[] { rs.getLong(1), rs.getLong(2) }, sampleSize);
+        } catch (RuntimeException e) {
+            logger.warn("JIT warm-up skipped, no variants to quote: {}", e.getMessage());
+            return;
+        }
+        if (samples.isEmpty()) return;
+        for (int i = 0; i < iterations && !stopped; i++) {
+            long[] sample = samples.get(i % samples.size());
+            int quantity = 1 + i % 20;
+            try {
+                PricingEngine.PriceResult price = pricingEngine.calculatePrice(sample[0], i % 4 == 0 ? null : sample[1],
+                    quantity, TIERS[i % TIERS.length], i % 2 == 0 ? "WARMUP" : null, WARMUP_USER_ID);
+                objectMapper.writeValueAsBytes(price);
+                CartItem item = cartService.priceSnapshot(WARMUP_CART_ID, sample[1], quantity, price);
+                objectMapper.readValue(objectMapper.writeValueAsBytes(item), CartItem.class);
+                objectMapper.readValue(item.getDiscounts(), List.class);
+                objectMapper.readValue("{\"cartId\":0,\"variantId\":" + sample[1] + ",\"quantity\":" + quantity + "}", Map.class);
+                if (i % 10 == 0) {
+                    objectMapper.writeValueAsBytes(productDetailCache.get(sample[0]).orElse(null));
+                }
+            } catch (RuntimeException | IOException e) {
+                // A variant archived or changed since sampling; the next sample will do
+                failed.incrementAndGet();
+            }
+            done.incrementAndGet();
+        }
+    }
+}
@@ -3,10 +3,16 @@ package com.example.ecommerce.controller;
 import com.example.ecommerce.entity.User;
 import com.example.ecommerce.repository.UserRepository;
 import com.example.ecommerce.service.JwtService;
+import com.example.ecommerce.service.PasswordHashingService;
+import com.example.ecommerce.service.UserLookupCache;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.web.bind.annotation.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/auth")
@@ -15,22 +21,48 @@ public class AuthController {
     private UserRepository userRepository;
     @Autowired
     private JwtService jwtService;
-    private BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
+    @Autowired
+    private PasswordHashingService passwordHashingService;
+    @Autowired
+    private UserLookupCache userLookupCache;
+    // The MVC async executor; the insert must not hold one of the few hashing threads while the database is slow
+    @Autowired
+    @Qualifier("applicationTaskExecutor")
+    private AsyncTaskExecutor taskExecutor;
 
+    // Hashing runs on its own pool; the request thread is released until it completes.
     @PostMapping("/register")
-    public ResponseEntity<User> register(@RequestBody User user) {
-        user.setPassword(passwordEncoder.encode(user.getPassword()));
-        User saved = userRepository.save(user);
-        return ResponseEntity.status(201).body(saved);
+    public CompletableFuture<ResponseEntity<User>> register(@RequestBody User user) {
+        try {
+            return passwordHashingService.encode(user.getPassword())
+                .thenApplyAsync(hash -> {
+                    user.setPassword(hash);
+                    User saved = userRepository.save(user);
+                    userLookupCache.evict(saved.getEmail());
+                    return ResponseEntity.status(201).body(saved);
+                }, taskExecutor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture(busy());
+        }
     }
 
     @PostMapping("/login")
-    public ResponseEntity<String> login(@RequestBody User user) {
-        User found = userRepository.findByEmail(user.getEmail());
-        if (found != null && passwordEncoder.matches(user.getPassword(), found.getPassword())) {
-            String token = jwtService.generateToken(found);
-            return ResponseEntity.ok(token);
+    public CompletableFuture<ResponseEntity<String>> login(@RequestBody User user) {
+        User found = userLookupCache.findByEmail(user.getEmail());
+        if (found == null || user.getPassword() == null) {
+            return CompletableFuture.completedFuture(ResponseEntity.status(401).body("Invalid credentials"));
         }
-        return ResponseEntity.status(401).body("Invalid credentials");
+        try {
+            return passwordHashingService.matches(user.getPassword(), found.getPassword())
+                .thenApply(matches -> matches
+                    ? ResponseEntity.ok(jwtService.generateToken(found))
+                    : ResponseEntity.status(401).body("Invalid credentials"));
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture(busy());
+        }
+    }
+
+    private static <T> ResponseEntity<T> busy() {
+        return ResponseEntity.status(503).header(HttpHeaders.RETRY_AFTER, "1").build();
     }
 }
@@ -1,43 +1,41 @@
 package com.example.ecommerce.controller;
 
+import com.example.ecommerce.config.HttpCachePolicy;
 import com.example.ecommerce.entity.Category;
 import com.example.ecommerce.repository.CategoryRepository;
+import com.example.ecommerce.service.CategoryTreeCache;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-import java.util.List;
-import java.util.Map;
-import java.util.HashMap;
-import java.util.ArrayList;
 
 @RestController
 @RequestMapping("/categories")
 public class CategoryController {
     @Autowired
     private CategoryRepository categoryRepository;
+    @Autowired
+    private CategoryTreeCache categoryTreeCache;
+    @Autowired
+    private HttpCachePolicy httpCachePolicy;
 
     @PostMapping
     public ResponseEntity<Category> createCategory(@RequestBody Category category) {
         Category saved = categoryRepository.save(category);
+        categoryTreeCache.invalidate();
         return ResponseEntity.status(201).body(saved);
     }
 
     @GetMapping
-    public List<CategoryNode> listCategories() {
-        List<Category> all = categoryRepository.findAll();
-        Map<Long, CategoryNode> map = new HashMap<>();
-        List<CategoryNode> roots = new ArrayList<>();
-        for (Category c : all) {
-            map.put(c.getId(), new CategoryNode(c));
-        }
-        for (CategoryNode node : map.values()) {
-            if (node.parentId != null && map.containsKey(node.parentId)) {
-                map.get(node.parentId).children.add(node);
-            } else {
-                roots.add(node);
-            }
-        }
-        return roots;
+    public ResponseEntity<byte[]> listCategories() {
+        // Pre-serialized tree; a matching If-None-Match is answered with 304 by the ETag check.
+        CategoryTreeCache.Snapshot snapshot = categoryTreeCache.getSnapshot();
+        return ResponseEntity.ok()
+            .eTag(snapshot.etag)
+            .header(HttpHeaders.CACHE_CONTROL, httpCachePolicy.cacheControlFor("categories"))
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(snapshot.json);
     }
 
     @GetMapping("/{id}")
@@ -53,6 +51,7 @@ public class CategoryController {
             .map(existing -> {
                 category.setId(id);
                 Category updated = categoryRepository.save(category);
+                categoryTreeCache.invalidate();
                 return ResponseEntity.ok(updated);
             })
             .orElse(ResponseEntity.notFound().build());
@@ -62,23 +61,9 @@ public class CategoryController {
     public ResponseEntity<Void> deleteCategory(@PathVariable Long id) {
         if (categoryRepository.existsById(id)) {
             categoryRepository.deleteById(id);
+            categoryTreeCache.invalidate();
             return ResponseEntity.noContent().build();
         }
         return ResponseEntity.notFound().build();
     }
 }
-
-class CategoryNode {
-    public Long id;
-    public String name;
-    public String slug;
-    public Long parentId;
-    public List<CategoryNode> children = new ArrayList<>();
-
-    CategoryNode(Category c) {
-        this.id = c.getId();
-        this.name = c.getName();
-        this.slug = c.getSlug();
-        this.parentId = c.getParentId();
-    }
-}
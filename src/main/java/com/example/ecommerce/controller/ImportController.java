@@ -0,0 +1,38 @@
+package com.example.ecommerce.controller;
+
+import com.example.ecommerce.service.CatalogImportService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import java.io.IOException;
+import java.util.List;
+
+@Lazy
+@RestController
+@RequestMapping("/import")
+public class ImportController {
+    @Autowired
+    private CatalogImportService catalogImportService;
+
+    @PostMapping(value = "/products", consumes = {"text/csv", "application/x-ndjson"})
+    public ResponseEntity<CatalogImportService.ImportJob> importProducts(HttpServletRequest request) throws IOException {
+        return report(catalogImportService.importProducts(request.getInputStream(), request.getContentType()));
+    }
+
+    @PostMapping(value = "/variants", consumes = {"text/csv", "application/x-ndjson"})
+    public ResponseEntity<CatalogImportService.ImportJob> importVariants(HttpServletRequest request) throws IOException {
+        return report(catalogImportService.importVariants(request.getInputStream(), request.getContentType()));
+    }
+
+    @GetMapping("/jobs")
+    public List<CatalogImportService.ImportJob> listJobs() {
+        return catalogImportService.listJobs();
+    }
+
+    // Row-level rejections still complete the import; only a failed write aborts it.
+    private ResponseEntity<CatalogImportService.ImportJob> report(CatalogImportService.ImportJob job) {
+        return ResponseEntity.status("FAILED".equals(job.status) ? 500 : 200).body(job);
+    }
+}
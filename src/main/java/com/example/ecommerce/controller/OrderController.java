@@ -1,8 +1,10 @@
 package com.example.ecommerce.controller;
 
+import com.example.ecommerce.config.HttpCachePolicy;
 import com.example.ecommerce.entity.Order;
 import com.example.ecommerce.repository.OrderRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import java.util.List;
@@ -12,6 +14,8 @@ import java.util.List;
 public class OrderController {
     @Autowired
     private OrderRepository orderRepository;
+    @Autowired
+    private HttpCachePolicy httpCachePolicy;
 
     @PostMapping
     public ResponseEntity<Order> createOrder(@RequestBody Order order) {
@@ -27,7 +31,10 @@ public class OrderController {
     @GetMapping("/{id}")
     public ResponseEntity<Order> getOrder(@PathVariable Long id) {
         return orderRepository.findById(id)
-            .map(ResponseEntity::ok)
+            .map(order -> ResponseEntity.ok()
+                .eTag(HttpCachePolicy.versionTag("order", order.getId(), order.getVersion()))
+                .header(HttpHeaders.CACHE_CONTROL, httpCachePolicy.cacheControlFor("orders"))
+                .body(order))
             .orElse(ResponseEntity.notFound().build());
     }
 }
@@ -1,14 +1,22 @@
 package com.example.ecommerce.controller;
 
+import com.example.ecommerce.config.HttpCachePolicy;
 import com.example.ecommerce.entity.Product;
 import com.example.ecommerce.entity.Variant;
 import com.example.ecommerce.repository.ProductRepository;
 import com.example.ecommerce.repository.VariantRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 import java.util.List;
+import com.example.ecommerce.service.PricingAttributeCache;
 import com.example.ecommerce.service.PricingEngine;
+import com.example.ecommerce.service.ProductDetailCache;
+import com.example.ecommerce.service.ProductSearchIndex;
 
 @RestController
 @RequestMapping("/products")
@@ -19,10 +27,19 @@ public class ProductController {
     private VariantRepository variantRepository;
     @Autowired
     private PricingEngine pricingEngine;
+    @Autowired
+    private ProductDetailCache productDetailCache;
+    @Autowired
+    private ProductSearchIndex productSearchIndex;
+    @Autowired
+    private HttpCachePolicy httpCachePolicy;
+    @Autowired
+    private PricingAttributeCache pricingAttributeCache;
 
     @PostMapping
     public ResponseEntity<Product> createProduct(@RequestBody Product product) {
         Product saved = productRepository.save(product);
+        productSearchIndex.index(saved);
         return ResponseEntity.status(201).body(saved);
     }
 
@@ -31,10 +48,27 @@ public class ProductController {
         return productRepository.findAll();
     }
 
+    @GetMapping("/search")
+    public ResponseEntity<ProductSearchIndex.SearchResult> searchProducts(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(productSearchIndex.search(q, page, size));
+    }
+
+    @GetMapping("/search/suggest")
+    public List<String> suggestProducts(@RequestParam String prefix, @RequestParam(defaultValue = "10") int limit) {
+        return productSearchIndex.suggest(prefix, Math.min(limit, 50));
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<Product> getProduct(@PathVariable Long id) {
-        return productRepository.findById(id)
-            .map(ResponseEntity::ok)
+        // With a matching If-None-Match, Spring answers 304 from the ETag without writing the body.
+        return productDetailCache.get(id)
+            .map(product -> ResponseEntity.ok()
+                .eTag(productTag(product))
+                .header(HttpHeaders.CACHE_CONTROL, httpCachePolicy.cacheControlFor("products"))
+                .body(product))
             .orElse(ResponseEntity.notFound().build());
     }
 
@@ -45,6 +79,7 @@ public class ProductController {
         }
         variant.setProductId(productId);
         Variant saved = variantRepository.save(variant);
+        productDetailCache.evict(productId);
         return ResponseEntity.status(201).body(saved);
     }
 
@@ -60,25 +95,72 @@ public class ProductController {
         return ResponseEntity.ok(result);
     }
 
+    // Optional preconditions on the product row alone, so stock and reservation churn on its variants never fails
+    // them: If-Match with the ETag from GET /products/{id}, or the version in the body. Without either the update
+    // applies unconditionally, as before. Hibernate still checks the version in the
+    // UPDATE, which catches a write that lands between this read and the commit.
     @PutMapping("/{id}")
-    public ResponseEntity<Product> updateProduct(@PathVariable Long id, @RequestBody Product product) {
+    @Transactional
+    public ResponseEntity<Product> updateProduct(@PathVariable Long id, @RequestBody Product product,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         return productRepository.findById(id)
             .map(existing -> {
+                if (ifMatch != null && !productVersionMatches(ifMatch, id, existing.getVersion())) {
+                    return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).<Product>build();
+                }
+                if (product.getVersion() != null && !product.getVersion().equals(existing.getVersion())) {
+                    return ResponseEntity.status(HttpStatus.CONFLICT).<Product>build();
+                }
                 product.setId(id);
+                product.setVersion(existing.getVersion());
                 Product updated = productRepository.save(product);
+                productDetailCache.evict(id);
+                pricingAttributeCache.evictProduct(id);
+                productSearchIndex.index(updated);
                 return ResponseEntity.ok(updated);
             })
             .orElse(ResponseEntity.notFound().build());
     }
 
+    // Another write committed after the version check above
+    @ExceptionHandler(ObjectOptimisticLockingFailureException.class)
+    public ResponseEntity<Void> concurrentUpdate() {
+        return ResponseEntity.status(HttpStatus.CONFLICT).build();
+    }
+
     @DeleteMapping("/{id}")
+    @Transactional
     public ResponseEntity<Void> archiveProduct(@PathVariable Long id) {
         return productRepository.findById(id)
             .map(product -> {
                 product.setStatus("ARCHIVED");
                 productRepository.save(product);
-                return ResponseEntity.noContent().build();
+                productDetailCache.evict(id);
+                productSearchIndex.remove(id);
+                return ResponseEntity.noContent().<Void>build();
             })
             .orElse(ResponseEntity.notFound().build());
     }
+
+    // Only the product version part of the tag is compared; weak tags never match (strong comparison)
+    private static boolean productVersionMatches(String ifMatch, Long id, Long version) {
+        String prefix = "\"product-" + id + "." + (version != null ? version : 0L) + "-";
+        for (String candidate : ifMatch.split(",")) {
+            String trimmed = candidate.trim();
+            if (trimmed.equals("*") || trimmed.startsWith(prefix)) return true;
+        }
+        return false;
+    }
+
+    // The product's own version in clear, for If-Match on PUT, then a hash of the variant versions
+    private static String productTag(Product product) {
+        StringBuilder versions = new StringBuilder();
+        if (product.getVariants() != null) {
+            for (Variant v : product.getVariants()) {
+                versions.append(';').append(v.getId()).append(':').append(v.getVersion());
+            }
+        }
+        Long version = product.getVersion() != null ? product.getVersion() : 0L;
+        return HttpCachePolicy.hashedTag("product", product.getId() + "." + version, versions.toString());
+    }
 }
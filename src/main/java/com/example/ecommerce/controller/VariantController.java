@@ -1,39 +1,93 @@
 package com.example.ecommerce.controller;
 
+import com.example.ecommerce.config.HttpCachePolicy;
 import com.example.ecommerce.entity.Variant;
 import com.example.ecommerce.repository.VariantRepository;
+import com.example.ecommerce.service.AvailabilitySnapshot;
+import com.example.ecommerce.service.AvailabilityStream;
+import com.example.ecommerce.service.PricingAttributeCache;
+import com.example.ecommerce.service.ProductDetailCache;
+import com.example.ecommerce.service.StockAdjustmentService;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/variants")
 public class VariantController {
     @Autowired
     private VariantRepository variantRepository;
+    @Autowired
+    private ProductDetailCache productDetailCache;
+    @Autowired
+    private AvailabilitySnapshot availabilitySnapshot;
+    @Autowired
+    private HttpCachePolicy httpCachePolicy;
+    @Autowired
+    private PricingAttributeCache pricingAttributeCache;
+    // Resolved on first use; not needed to serve regular traffic
+    @Autowired
+    private ObjectProvider<StockAdjustmentService> stockAdjustmentService;
+    @Autowired
+    private AvailabilityStream availabilityStream;
 
     @GetMapping
     public List<Variant> listVariants() {
         return variantRepository.findAll();
     }
 
+    // Server-sent events with units available for up to 100 variants (ids=1,2,...), current values first
+    @GetMapping(value = "/availability", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamAvailability(@RequestParam List<Long> ids) {
+        try {
+            return ResponseEntity.ok(availabilityStream.subscribe(ids));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(503).header(HttpHeaders.RETRY_AFTER, "5").build();
+        }
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<Variant> getVariant(@PathVariable Long id) {
         return variantRepository.findById(id)
-            .map(ResponseEntity::ok)
+            .map(variant -> ResponseEntity.ok()
+                .eTag(HttpCachePolicy.versionTag("variant", variant.getId(), variant.getVersion()))
+                .header(HttpHeaders.CACHE_CONTROL, httpCachePolicy.cacheControlFor("variants"))
+                .body(variant))
             .orElse(ResponseEntity.notFound().build());
     }
 
     @PatchMapping("/{id}")
+    @Transactional
     public ResponseEntity<Variant> updateVariant(@PathVariable Long id, @RequestBody Variant variant) {
         return variantRepository.findById(id)
             .map(existing -> {
                 if (variant.getStockQuantity() != null) existing.setStockQuantity(variant.getStockQuantity());
                 if (variant.getPriceAdjustment() != null) existing.setPriceAdjustment(variant.getPriceAdjustment());
                 Variant updated = variantRepository.save(existing);
+                productDetailCache.evict(updated.getProductId());
+                if (variant.getStockQuantity() != null) availabilitySnapshot.update(updated);
+                if (variant.getPriceAdjustment() != null) pricingAttributeCache.evictVariant(id);
                 return ResponseEntity.ok(updated);
             })
             .orElse(ResponseEntity.notFound().build());
     }
+
+    // Bulk stock sync by SKU. Entries that would drop below reserved stock are skipped and listed as conflicts.
+    @PostMapping("/stock")
+    public ResponseEntity<Object> adjustStock(@RequestBody List<StockAdjustmentService.StockAdjustment> adjustments) {
+        try {
+            return ResponseEntity.ok(stockAdjustmentService.getObject().adjust(adjustments));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
 }
@@ -1,13 +1,16 @@
 package com.example.ecommerce.entity;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 import java.time.Instant;
 
 @Entity
 @Table(name = "cart_items")
 public class CartItem {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "cart_items_id_seq")
+    @SequenceGenerator(name = "cart_items_id_seq", sequenceName = "cart_items_id_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "cart_id", nullable = false)
@@ -20,13 +23,14 @@ public class CartItem {
     private Integer quantity;
 
     @Column(name = "unit_price", nullable = false)
-    private Double unitPrice;
+    private Money unitPrice;
 
+    @JdbcTypeCode(SqlTypes.JSON)
     @Column(name = "discounts", columnDefinition = "jsonb")
     private String discounts; // JSON string representation
 
     @Column(nullable = false)
-    private Double subtotal;
+    private Money subtotal;
 
     @Column(name = "snapshot_at", nullable = false)
     private Instant snapshotAt;
@@ -63,11 +67,11 @@ public class CartItem {
         this.quantity = quantity;
     }
 
-    public Double getUnitPrice() {
+    public Money getUnitPrice() {
         return unitPrice;
     }
 
-    public void setUnitPrice(Double unitPrice) {
+    public void setUnitPrice(Money unitPrice) {
         this.unitPrice = unitPrice;
     }
 
@@ -79,11 +83,11 @@ public class CartItem {
         this.discounts = discounts;
     }
 
-    public Double getSubtotal() {
+    public Money getSubtotal() {
         return subtotal;
     }
 
-    public void setSubtotal(Double subtotal) {
+    public void setSubtotal(Money subtotal) {
         this.subtotal = subtotal;
     }
 
@@ -0,0 +1,87 @@
+package com.example.ecommerce.entity;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * An amount in minor units (cents) for the DECIMAL(12,2) price columns. Sums and multiples are exact long
+ * arithmetic; only percentages round, half up to the cent. Stored through {@link MoneyConverter} and written
+ * to JSON as a plain decimal number, so API payloads keep their shape.
+ */
+public final class Money implements Comparable<Money>, Serializable {
+    public static final Money ZERO = new Money(0);
+
+    private final long cents;
+
+    private Money(long cents) {
+        this.cents = cents;
+    }
+
+    public static Money ofCents(long cents) {
+        return cents == 0 ? ZERO : new Money(cents);
+    }
+
+    /**
+     * @throws IllegalArgumentException if the amount has more than two decimals or does not fit in a long
+     */
+    @JsonCreator
+    public static Money of(BigDecimal amount) {
+        try {
+            return ofCents(amount.movePointRight(2).longValueExact());
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Not a valid money amount: " + amount.toPlainString());
+        }
+    }
+
+    /**
+     * Cents for percent% of an amount in cents, rounded half up (away from zero).
+     */
+    public static long percentOf(long cents, double percent) {
+        return BigDecimal.valueOf(cents).multiply(BigDecimal.valueOf(percent))
+            .movePointLeft(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+
+    public long cents() {
+        return cents;
+    }
+
+    public Money plus(Money other) {
+        return ofCents(Math.addExact(cents, other.cents));
+    }
+
+    public Money minus(Money other) {
+        return ofCents(Math.subtractExact(cents, other.cents));
+    }
+
+    public Money times(int quantity) {
+        return ofCents(Math.multiplyExact(cents, quantity));
+    }
+
+    @JsonValue
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(cents, other.cents);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof Money && ((Money) o).cents == cents;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(cents);
+    }
+
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString();
+    }
+}
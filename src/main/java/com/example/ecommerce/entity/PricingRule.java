@@ -1,13 +1,18 @@
 package com.example.ecommerce.entity;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import java.time.Instant;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "pricing-rule")
 @Table(name = "pricing_rules")
 public class PricingRule {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "pricing_rules_id_seq")
+    @SequenceGenerator(name = "pricing_rules_id_seq", sequenceName = "pricing_rules_id_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "type")
@@ -20,7 +25,7 @@ public class PricingRule {
     private Double percentage;
 
     @Column(name = "flat_amount")
-    private Double flatAmount;
+    private Money flatAmount;
 
     @Column(name = "user_tier")
     private String userTier;
@@ -49,6 +54,17 @@ public class PricingRule {
     @Column(name = "active")
     private Boolean active;
 
+    // DEMAND: sales window in minutes (5 or 60)
+    @Column(name = "window_minutes")
+    private Integer windowMinutes;
+
+    // DEMAND and SCARCITY apply while the measured level is in [thresholdMin, thresholdMax); null is unbounded
+    @Column(name = "threshold_min")
+    private Integer thresholdMin;
+
+    @Column(name = "threshold_max")
+    private Integer thresholdMax;
+
     // Getters and setters
     public Long getId() {
         return id;
@@ -82,11 +98,11 @@ public class PricingRule {
         this.percentage = percentage;
     }
 
-    public Double getFlatAmount() {
+    public Money getFlatAmount() {
         return flatAmount;
     }
 
-    public void setFlatAmount(Double flatAmount) {
+    public void setFlatAmount(Money flatAmount) {
         this.flatAmount = flatAmount;
     }
 
@@ -161,4 +177,28 @@ public class PricingRule {
     public void setActive(Boolean active) {
         this.active = active;
     }
+
+    public Integer getWindowMinutes() {
+        return windowMinutes;
+    }
+
+    public void setWindowMinutes(Integer windowMinutes) {
+        this.windowMinutes = windowMinutes;
+    }
+
+    public Integer getThresholdMin() {
+        return thresholdMin;
+    }
+
+    public void setThresholdMin(Integer thresholdMin) {
+        this.thresholdMin = thresholdMin;
+    }
+
+    public Integer getThresholdMax() {
+        return thresholdMax;
+    }
+
+    public void setThresholdMax(Integer thresholdMax) {
+        this.thresholdMax = thresholdMax;
+    }
 }
@@ -8,7 +8,8 @@ import jakarta.persistence.*;
 })
 public class PricingRuleUsage {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "pricing_rule_usages_id_seq")
+    @SequenceGenerator(name = "pricing_rule_usages_id_seq", sequenceName = "pricing_rule_usages_id_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "rule_id", nullable = false)
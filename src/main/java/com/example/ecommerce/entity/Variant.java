@@ -1,12 +1,15 @@
 package com.example.ecommerce.entity;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.UpdateTimestamp;
+import java.time.Instant;
 
 @Entity
 @Table(name = "variants")
 public class Variant {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "variants_id_seq")
+    @SequenceGenerator(name = "variants_id_seq", sequenceName = "variants_id_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "sku", unique = true)
@@ -22,11 +25,19 @@ public class Variant {
     private Integer reservedQuantity = 0;
 
     @Column(name = "price_adjustment")
-    private Double priceAdjustment = 0.0;
+    private Money priceAdjustment = Money.ZERO;
 
     @Column(name = "product_id")
     private Long productId;
 
+    @Version
+    @Column(name = "version")
+    private Long version;
+
+    @UpdateTimestamp
+    @Column(name = "updated_at")
+    private Instant updatedAt;
+
     // Getters and setters
     public Long getId() {
         return id;
@@ -68,11 +79,17 @@ public class Variant {
         this.reservedQuantity = reservedQuantity;
     }
 
-    public Double getPriceAdjustment() {
+    // Derived, not persisted: stock that is neither sold nor held by a reservation
+    public Integer getAvailableQuantity() {
+        if (stockQuantity == null) return null;
+        return stockQuantity - (reservedQuantity != null ? reservedQuantity : 0);
+    }
+
+    public Money getPriceAdjustment() {
         return priceAdjustment;
     }
 
-    public void setPriceAdjustment(Double priceAdjustment) {
+    public void setPriceAdjustment(Money priceAdjustment) {
         this.priceAdjustment = priceAdjustment;
     }
 
@@ -83,4 +100,20 @@ public class Variant {
     public void setProductId(Long productId) {
         this.productId = productId;
     }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(Instant updatedAt) {
+        this.updatedAt = updatedAt;
+    }
 }
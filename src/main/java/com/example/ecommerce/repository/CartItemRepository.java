@@ -1,4 +1,4 @@
-package main.java.com.example.ecommerce.repository;
+package com.example.ecommerce.repository;
 
 import com.example.ecommerce.entity.CartItem;
 import org.springframework.data.jpa.repository.JpaRepository;
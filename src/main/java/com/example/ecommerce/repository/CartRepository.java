@@ -2,8 +2,13 @@ package com.example.ecommerce.repository;
 
 import com.example.ecommerce.entity.Cart;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import jakarta.persistence.LockModeType;
 import java.util.Optional;
 
 public interface CartRepository extends JpaRepository<Cart, Long> {
     Optional<Cart> findByUserIdAndStatus(Long userId, String status);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<Cart> findWithLockingById(Long id);
 }
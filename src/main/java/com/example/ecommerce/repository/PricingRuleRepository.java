@@ -1,17 +1,28 @@
 package com.example.ecommerce.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.Query;
-import org.springframework.data.repository.query.Param;
+import org.springframework.data.jpa.repository.QueryHints;
 import com.example.ecommerce.entity.PricingRule;
 
 import java.time.Instant;
 import java.util.List;
+import java.util.stream.Collectors;
 
 public interface PricingRuleRepository extends JpaRepository<PricingRule, Long> {
     // Custom queries for rule selection are implemented below.
 
+    // Served from the query cache; the time window is applied in memory so the cache key does not change with "now"
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    @Query("SELECT r FROM PricingRule r WHERE r.active = true")
+    List<PricingRule> findActiveRules();
+
     // Fetch only active and currently valid rules
-    @Query("SELECT r FROM PricingRule r WHERE r.active = true AND (r.startAt IS NULL OR r.startAt <= :now) AND (r.endAt IS NULL OR r.endAt >= :now)")
-    List<PricingRule> findActiveValidRules(@Param("now") Instant now);
+    default List<PricingRule> findActiveValidRules(Instant now) {
+        return findActiveRules().stream()
+            .filter(r -> (r.getStartAt() == null || !r.getStartAt().isAfter(now)) && (r.getEndAt() == null || !r.getEndAt().isBefore(now)))
+            .collect(Collectors.toList());
+    }
 }
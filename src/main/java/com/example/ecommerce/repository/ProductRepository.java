@@ -1,7 +1,34 @@
 package com.example.ecommerce.repository;
 
 import com.example.ecommerce.entity.Product;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Stream;
 
 public interface ProductRepository extends JpaRepository<Product, Long> {
+    // One row per variant (or a single row with a null variant), fetched in a single round trip
+    @Query("SELECT p, v FROM Product p LEFT JOIN Variant v ON v.productId = p.id WHERE p.id = :id ORDER BY v.id")
+    List<Object[]> findWithVariantsById(@Param("id") Long id);
+
+    // Keyset pagination for full scans such as the search index build
+    List<Product> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    // Cursor-backed streams for exports; must be consumed inside a (read-only) transaction. They neither read nor
+    // fill the second-level cache, so a full export does not push the hot products out of the "product" region.
+    @QueryHints({ @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+        @QueryHint(name = HibernateHints.HINT_CACHE_MODE, value = "IGNORE") })
+    @Query("SELECT p FROM Product p ORDER BY p.id")
+    Stream<Product> streamAll();
+
+    @QueryHints({ @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+        @QueryHint(name = HibernateHints.HINT_CACHE_MODE, value = "IGNORE") })
+    @Query("SELECT p FROM Product p WHERE p.updatedAt >= :since ORDER BY p.updatedAt, p.id")
+    Stream<Product> streamUpdatedSince(@Param("since") Instant since);
 }
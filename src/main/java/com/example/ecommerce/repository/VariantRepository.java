@@ -3,10 +3,26 @@ package com.example.ecommerce.repository;
 import com.example.ecommerce.entity.Variant;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.hibernate.jpa.HibernateHints;
 import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import java.time.Instant;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface VariantRepository extends JpaRepository<Variant, Long> {
     @Lock(LockModeType.PESSIMISTIC_WRITE)
     Optional<Variant> findWithLockingById(Long id);
+
+    // Cursor-backed streams for exports; must be consumed inside a (read-only) transaction
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT v FROM Variant v ORDER BY v.id")
+    Stream<Variant> streamAll();
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT v FROM Variant v WHERE v.updatedAt >= :since ORDER BY v.updatedAt, v.id")
+    Stream<Variant> streamUpdatedSince(@Param("since") Instant since);
 }
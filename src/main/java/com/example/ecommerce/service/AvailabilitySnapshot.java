@@ -0,0 +1,216 @@
+package com.example.ecommerce.service;
+
+import com.example.ecommerce.config.ReplicaRoutingDataSource;
+import com.example.ecommerce.entity.Variant;
+import com.example.ecommerce.repository.VariantRepository;
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+
+/**
+ * Stock and reserved units per variant for pricing and product detail, read without touching the variant row.
+ * Every reservation, checkout and stock change pushes the committed values here and to the other nodes over
+ * Redis; a snapshot only replaces an older row version. Entries are reloaded in the background once they are
+ * older than pricing.availability.max-staleness-seconds, which also covers writes that bypass the services.
+ * Never use it to decide whether stock can be reserved; that still needs the row lock.
+ */
+@Service
+public class AvailabilitySnapshot {
+    private static final Logger logger = LoggerFactory.getLogger(AvailabilitySnapshot.class);
+    static final String UPDATE_CHANNEL = "availability:update";
+    // Cached for variants that do not exist, so unknown ids do not hit the database on every quote
+    private static final Availability MISSING = new Availability(0, 0, Long.MIN_VALUE);
+
+    // Lets a node skip its own broadcasts: it already applied them
+    private final String nodeId = UUID.randomUUID().toString();
+
+    @Autowired
+    private VariantRepository variantRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+    @Autowired
+    private RedisMessageListenerContainer listenerContainer;
+
+    @Value("${pricing.availability.max-size:200000}")
+    private long maxSize;
+    @Value("${pricing.availability.max-staleness-seconds:30}")
+    private long maxStalenessSeconds;
+
+    private LoadingCache<Long, Availability> snapshots;
+    private TransactionTemplate loadTransaction;
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Told about every pushed change that replaces an older snapshot, local or from another node. Called on the
+     * committing or Redis listener thread, so it must not block. Background reloads are not reported.
+     */
+    public interface Listener {
+        void availabilityChanged(Long variantId, int available);
+    }
+
+    static final class Availability {
+        final int stockQuantity;
+        final int reservedQuantity;
+        final int available;
+        final long version;
+
+        Availability(int stockQuantity, int reservedQuantity, long version) {
+            this.stockQuantity = stockQuantity;
+            this.reservedQuantity = reservedQuantity;
+            this.available = stockQuantity - reservedQuantity;
+            this.version = version;
+        }
+    }
+
+    @PostConstruct
+    void init() {
+        loadTransaction = new TransactionTemplate(transactionManager);
+        loadTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        loadTransaction.setReadOnly(true);
+        snapshots = Caffeine.newBuilder()
+            .maximumSize(maxSize)
+            .refreshAfterWrite(Duration.ofSeconds(maxStalenessSeconds))
+            .build(new CacheLoader<Long, Availability>() {
+                @Override
+                public Availability load(Long id) {
+                    return loadFromPrimary(id);
+                }
+
+                // A pushed update may already be newer than the row read here
+                @Override
+                public Availability reload(Long id, Availability current) {
+                    Availability loaded = loadFromPrimary(id);
+                    return loaded == MISSING || loaded.version >= current.version ? loaded : current;
+                }
+            });
+        listenerContainer.addMessageListener((message, pattern) -> onMessage(new String(message.getBody())),
+            new ChannelTopic(UPDATE_CHANNEL));
+    }
+
+    // Read-only transactions go to a replica, which may be behind the versions already pushed here
+    private Availability loadFromPrimary(Long variantId) {
+        return ReplicaRoutingDataSource.onPrimary(() -> loadTransaction.execute(status -> variantRepository.findById(variantId)
+            .map(v -> new Availability(v.getStockQuantity(), v.getReservedQuantity(), v.getVersion()))
+            .orElse(MISSING)));
+    }
+
+    /**
+     * @param variantId Variant ID
+     * @return Units available as of the latest snapshot, or null if the variant does not exist
+     */
+    public Integer available(Long variantId) {
+        Availability a = snapshots.get(variantId);
+        return a == MISSING ? null : a.available;
+    }
+
+    /**
+     * The latest snapshot this node holds, without loading on a miss; null if there is none.
+     */
+    Availability peek(Long variantId) {
+        Availability a = snapshots.getIfPresent(variantId);
+        return a == MISSING ? null : a;
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Publishes the variants' stock and reservations on every node once the current transaction (if any) commits.
+     * The entities are read at commit, after the flush has bumped their versions.
+     */
+    public void update(Collection<Variant> variants) {
+        List<Variant> changed = new ArrayList<>(variants);
+        afterCommit(() -> publish(changed.stream()
+            .map(v -> entry(v.getId(), v.getStockQuantity(), v.getReservedQuantity(), v.getVersion()))
+            .collect(Collectors.toList())));
+    }
+
+    public void update(Variant variant) {
+        update(List.of(variant));
+    }
+
+    /**
+     * Same as {@link #update(Collection)} for writes made with plain SQL.
+     */
+    public void update(Long variantId, int stockQuantity, int reservedQuantity, long version) {
+        String entry = entry(variantId, stockQuantity, reservedQuantity, version);
+        afterCommit(() -> publish(List.of(entry)));
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private static String entry(Long variantId, int stockQuantity, int reservedQuantity, Long version) {
+        return variantId + ":" + stockQuantity + ":" + reservedQuantity + ":" + (version != null ? version : 0);
+    }
+
+    private void publish(List<String> entries) {
+        if (entries.isEmpty()) return;
+        applyLocal(entries);
+        try {
+            redisTemplate.convertAndSend(UPDATE_CHANNEL, nodeId + "|" + String.join(",", entries));
+        } catch (Exception e) {
+            logger.warn("Failed to broadcast availability update: {}", e.getMessage());
+        }
+    }
+
+    private void onMessage(String message) {
+        String[] parts = message.split("\\|", 2);
+        if (parts.length != 2 || nodeId.equals(parts[0])) return;
+        try {
+            applyLocal(List.of(parts[1].split(",")));
+        } catch (RuntimeException e) {
+            logger.warn("Ignoring malformed availability update {}: {}", message, e.getMessage());
+        }
+    }
+
+    private void applyLocal(List<String> entries) {
+        for (String entry : entries) {
+            String[] f = entry.split(":");
+            Long variantId = Long.valueOf(f[0]);
+            Availability update = new Availability(Integer.parseInt(f[1]), Integer.parseInt(f[2]), Long.parseLong(f[3]));
+            // Messages can arrive out of order; keep whichever snapshot has the newer row version
+            Availability applied = snapshots.asMap().merge(variantId, update,
+                (current, next) -> next.version >= current.version ? next : current);
+            if (applied == update) {
+                for (Listener listener : listeners) {
+                    listener.availabilityChanged(variantId, update.available);
+                }
+            }
+        }
+    }
+}
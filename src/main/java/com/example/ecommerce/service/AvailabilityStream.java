@@ -0,0 +1,266 @@
+package com.example.ecommerce.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Server-sent availability updates for the variants a client subscribes to. Changes come from the
+ * {@link AvailabilitySnapshot} feed, so writes on other nodes are included. They are coalesced per variant every
+ * availability-stream.coalesce-millis, so a busy variant costs each subscriber at most one event per window.
+ *
+ * Events are queued per subscriber (at most max-queued-events) and written by a small sender pool, one task per
+ * subscriber at a time. A client whose queue is full, or whose write has been blocked for write-timeout-seconds,
+ * is dropped; it reconnects and starts again from current values. So a slow client only ever holds one sender
+ * thread, never the coalescing thread. Idle subscribers hold no thread, only their connection; a comment every
+ * heartbeat-seconds keeps proxies from closing them and drops clients that have gone away.
+ */
+@Service
+public class AvailabilityStream {
+    private static final Logger logger = LoggerFactory.getLogger(AvailabilityStream.class);
+    public static final int MAX_VARIANTS_PER_SUBSCRIPTION = 100;
+    // Queued in place of an event and recognised by identity; sent as an SSE comment
+    private static final String KEEPALIVE = "keepalive";
+
+    @Autowired
+    private AvailabilitySnapshot availabilitySnapshot;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${availability-stream.coalesce-millis:250}")
+    private long coalesceMillis;
+    @Value("${availability-stream.heartbeat-seconds:25}")
+    private long heartbeatSeconds;
+    @Value("${availability-stream.timeout-minutes:30}")
+    private long timeoutMinutes;
+    @Value("${availability-stream.max-subscribers:50000}")
+    private int maxSubscribers;
+    @Value("${availability-stream.sender-threads:8}")
+    private int senderThreads;
+    // Must exceed MAX_VARIANTS_PER_SUBSCRIPTION: a subscription starts with one event per variant
+    @Value("${availability-stream.max-queued-events:200}")
+    private int maxQueuedEvents;
+    @Value("${availability-stream.write-timeout-seconds:10}")
+    private long writeTimeoutSeconds;
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final Map<Long, Set<Subscriber>> subscribersByVariant = new ConcurrentHashMap<>();
+    // Latest available count per variant changed since the last flush
+    private final Map<Long, Integer> pending = new ConcurrentHashMap<>();
+    // Coalesces, queues and times out writes; never writes to a client itself
+    private ScheduledExecutorService ticker;
+    private ExecutorService senders;
+    private Counter droppedCounter;
+
+    private static final class Subscriber {
+        final SseEmitter emitter;
+        final Set<Long> variantIds;
+        final ArrayBlockingQueue<String> queue;
+        // True while a drain task for this subscriber is queued or running on the sender pool
+        final AtomicBoolean draining = new AtomicBoolean();
+        volatile boolean closed;
+        volatile Thread writer;
+        volatile long writeStartedNanos;
+
+        Subscriber(SseEmitter emitter, Set<Long> variantIds, int capacity) {
+            this.emitter = emitter;
+            this.variantIds = variantIds;
+            this.queue = new ArrayBlockingQueue<>(capacity);
+        }
+    }
+
+    @PostConstruct
+    void start() {
+        ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "availability-stream");
+            t.setDaemon(true);
+            return t;
+        });
+        senders = Executors.newFixedThreadPool(senderThreads, r -> {
+            Thread t = new Thread(r, "availability-stream-sender");
+            t.setDaemon(true);
+            return t;
+        });
+        ticker.scheduleWithFixedDelay(this::flush, coalesceMillis, coalesceMillis, TimeUnit.MILLISECONDS);
+        ticker.scheduleWithFixedDelay(this::heartbeat, heartbeatSeconds, heartbeatSeconds, TimeUnit.SECONDS);
+        availabilitySnapshot.addListener((variantId, available) -> {
+            if (subscribersByVariant.containsKey(variantId)) pending.put(variantId, available);
+        });
+        Gauge.builder("availability.stream.subscribers", subscribers, Set::size)
+            .description("Open availability event streams").register(meterRegistry);
+        droppedCounter = Counter.builder("availability.stream.dropped")
+            .description("Availability streams closed because the client fell behind").register(meterRegistry);
+    }
+
+    @PreDestroy
+    void stop() {
+        ticker.shutdownNow();
+        senders.shutdownNow();
+        for (Subscriber s : subscribers) {
+            s.emitter.complete();
+        }
+    }
+
+    /**
+     * Opens a stream of "availability" events ({"variantId":..,"available":..}) for the given variants, starting
+     * with their current values.
+     * @throws IllegalArgumentException if no variants or more than {@link #MAX_VARIANTS_PER_SUBSCRIPTION} are given
+     * @throws IllegalStateException if the node already has availability-stream.max-subscribers open streams
+     */
+    public SseEmitter subscribe(List<Long> variantIds) {
+        Set<Long> ids = new LinkedHashSet<>(variantIds);
+        if (ids.isEmpty() || ids.contains(null)) {
+            throw new IllegalArgumentException("At least one variant id is required");
+        }
+        if (ids.size() > MAX_VARIANTS_PER_SUBSCRIPTION) {
+            throw new IllegalArgumentException("At most " + MAX_VARIANTS_PER_SUBSCRIPTION + " variants per stream");
+        }
+        if (subscribers.size() >= maxSubscribers) {
+            throw new IllegalStateException("Too many open availability streams");
+        }
+        SseEmitter emitter = new SseEmitter(TimeUnit.MINUTES.toMillis(timeoutMinutes));
+        Subscriber subscriber = new Subscriber(emitter, ids, Math.max(maxQueuedEvents, ids.size() + 1));
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onError(e -> remove(subscriber));
+        subscribers.add(subscriber);
+        for (Long id : ids) {
+            subscribersByVariant.compute(id, (k, set) -> {
+                if (set == null) set = ConcurrentHashMap.newKeySet();
+                set.add(subscriber);
+                return set;
+            });
+        }
+        for (Long id : ids) {
+            Integer available = availabilitySnapshot.available(id);
+            if (available != null) enqueue(subscriber, event(id, available));
+        }
+        return emitter;
+    }
+
+    private void remove(Subscriber subscriber) {
+        subscriber.closed = true;
+        if (!subscribers.remove(subscriber)) return;
+        for (Long id : subscriber.variantIds) {
+            subscribersByVariant.computeIfPresent(id, (k, set) -> {
+                set.remove(subscriber);
+                return set.isEmpty() ? null : set;
+            });
+        }
+    }
+
+    private void flush() {
+        try {
+            for (Long variantId : new ArrayList<>(pending.keySet())) {
+                Integer available = pending.remove(variantId);
+                Set<Subscriber> targets = subscribersByVariant.get(variantId);
+                if (available == null || targets == null) continue;
+                String data = event(variantId, available);
+                for (Subscriber s : targets) {
+                    enqueue(s, data);
+                }
+            }
+            expireStalledWrites();
+        } catch (RuntimeException e) {
+            logger.warn("Failed to flush availability events: {}", e.getMessage());
+        }
+    }
+
+    private void heartbeat() {
+        for (Subscriber s : subscribers) {
+            enqueue(s, KEEPALIVE);
+        }
+    }
+
+    private static String event(Long variantId, int available) {
+        return "{\"variantId\":" + variantId + ",\"available\":" + available + "}";
+    }
+
+    private void enqueue(Subscriber s, String data) {
+        if (s.closed) return;
+        if (!s.queue.offer(data)) {
+            logger.debug("Dropping availability stream with {} queued events", s.queue.size());
+            droppedCounter.increment();
+            // Completed by a sender thread: completing here could wait behind the client's blocked write
+            remove(s);
+        }
+        scheduleDrain(s);
+    }
+
+    private void scheduleDrain(Subscriber s) {
+        if (s.draining.compareAndSet(false, true)) {
+            try {
+                senders.execute(() -> drain(s));
+            } catch (RejectedExecutionException e) {
+                s.draining.set(false);
+            }
+        }
+    }
+
+    // Interrupts writes blocked longer than write-timeout-seconds; the sender thread then drops the subscriber
+    private void expireStalledWrites() {
+        long timeoutNanos = TimeUnit.SECONDS.toNanos(writeTimeoutSeconds);
+        for (Subscriber s : subscribers) {
+            Thread writer = s.writer;
+            if (writer != null && System.nanoTime() - s.writeStartedNanos > timeoutNanos) {
+                logger.debug("Dropping availability stream blocked on a write for over {}s", writeTimeoutSeconds);
+                droppedCounter.increment();
+                remove(s);
+                writer.interrupt();
+            }
+        }
+    }
+
+    private void drain(Subscriber s) {
+        try {
+            String data;
+            while (!s.closed && (data = s.queue.poll()) != null) {
+                s.writeStartedNanos = System.nanoTime();
+                s.writer = Thread.currentThread();
+                try {
+                    if (data == KEEPALIVE) {
+                        s.emitter.send(SseEmitter.event().comment(KEEPALIVE));
+                    } else {
+                        s.emitter.send(SseEmitter.event().name("availability").data(data));
+                    }
+                } finally {
+                    s.writer = null;
+                }
+            }
+        } catch (Exception e) {
+            // The client went away or stopped reading
+            remove(s);
+        } finally {
+            // A late interrupt from expireStalledWrites must not reach the next subscriber's write
+            Thread.interrupted();
+            s.draining.set(false);
+        }
+        if (s.closed) {
+            s.queue.clear();
+            s.emitter.complete();
+        } else if (!s.queue.isEmpty()) {
+            // Events queued after the last poll but before draining was cleared
+            scheduleDrain(s);
+        }
+    }
+}
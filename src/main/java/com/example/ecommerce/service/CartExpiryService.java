@@ -0,0 +1,119 @@
+package com.example.ecommerce.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import java.sql.Array;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Expires abandoned carts with set-based statements: releases whatever the cart still has reserved, deletes its
+ * items and marks it EXPIRED. Carts locked by a concurrent cart change or checkout are skipped, so several nodes
+ * can run the job at once and a cart in use is never expired under its owner.
+ */
+@Lazy
+@Service
+public class CartExpiryService {
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private AvailabilitySnapshot availabilitySnapshot;
+    @Autowired
+    private ReservationEventLog reservationEventLog;
+
+    public static class ExpiryResult {
+        public int carts;
+        public int reservations;
+    }
+
+    /**
+     * Expires up to limit ACTIVE carts last changed before cutoff, oldest first, in one transaction.
+     * @return Number of carts expired and reservations released
+     */
+    @Transactional
+    public ExpiryResult expireIdleCarts(Instant cutoff, int limit) {
+        ExpiryResult result = new ExpiryResult();
+        jdbcTemplate.execute((ConnectionCallback<Void>) con -> {
+            List<Long> cartIds = new ArrayList<>();
+            try (PreparedStatement ps = con.prepareStatement(
+                    "SELECT id FROM carts WHERE status = 'ACTIVE' AND updated_at < ? "
+                    + "ORDER BY updated_at LIMIT ? FOR UPDATE SKIP LOCKED")) {
+                ps.setTimestamp(1, Timestamp.from(cutoff));
+                ps.setInt(2, limit);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        cartIds.add(rs.getLong(1));
+                    }
+                }
+            }
+            if (cartIds.isEmpty()) return null;
+            Array carts = con.createArrayOf("int8", cartIds.toArray());
+
+            // Cart first, then its variants in id order: the order cart changes and checkout lock in
+            try (PreparedStatement lock = con.prepareStatement(
+                    "SELECT id FROM variants WHERE id IN (SELECT r.variant_id FROM reservations r "
+                    + "JOIN cart_items ci ON ci.id = r.cart_item_id WHERE ci.cart_id = ANY(?) AND NOT r.released) "
+                    + "ORDER BY id FOR UPDATE")) {
+                lock.setArray(1, carts);
+                lock.executeQuery().close();
+            }
+            Map<Long, Integer> releasedByVariant = new TreeMap<>();
+            try (PreparedStatement ps = con.prepareStatement(
+                    "UPDATE reservations r SET released = TRUE FROM cart_items ci "
+                    + "WHERE ci.id = r.cart_item_id AND ci.cart_id = ANY(?) AND NOT r.released "
+                    + "RETURNING r.id, r.variant_id, r.quantity")) {
+                ps.setArray(1, carts);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        releasedByVariant.merge(rs.getLong(2), rs.getInt(3), Integer::sum);
+                        reservationEventLog.record(ReservationEventLog.Type.RELEASED, rs.getLong(1), rs.getLong(2), rs.getInt(3));
+                        result.reservations++;
+                    }
+                }
+            }
+            if (!releasedByVariant.isEmpty()) {
+                try (PreparedStatement ps = con.prepareStatement(
+                        "UPDATE variants v SET reserved_quantity = v.reserved_quantity - d.qty, "
+                        + "version = v.version + 1, updated_at = NOW() "
+                        + "FROM unnest(?::bigint[], ?::int[]) AS d(id, qty) WHERE v.id = d.id "
+                        + "RETURNING v.id, v.stock_quantity, v.reserved_quantity, v.version")) {
+                    ps.setArray(1, con.createArrayOf("int8", releasedByVariant.keySet().toArray()));
+                    ps.setArray(2, con.createArrayOf("int4", releasedByVariant.values().toArray()));
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) {
+                            availabilitySnapshot.update(rs.getLong(1), rs.getInt(2), rs.getInt(3), rs.getLong(4));
+                        }
+                    }
+                }
+            }
+            // Reservation rows outlive the items, as when a single item is removed
+            try (PreparedStatement ps = con.prepareStatement(
+                    "UPDATE reservations r SET cart_item_id = NULL FROM cart_items ci "
+                    + "WHERE ci.id = r.cart_item_id AND ci.cart_id = ANY(?)")) {
+                ps.setArray(1, carts);
+                ps.executeUpdate();
+            }
+            try (PreparedStatement ps = con.prepareStatement("DELETE FROM cart_items WHERE cart_id = ANY(?)")) {
+                ps.setArray(1, carts);
+                ps.executeUpdate();
+            }
+            try (PreparedStatement ps = con.prepareStatement(
+                    "UPDATE carts SET status = 'EXPIRED', updated_at = NOW() WHERE id = ANY(?)")) {
+                ps.setArray(1, carts);
+                result.carts = ps.executeUpdate();
+            }
+            return null;
+        });
+        return result;
+    }
+}
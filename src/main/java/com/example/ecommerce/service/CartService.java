@@ -31,6 +31,10 @@ public class CartService {
     private ReservationRepository reservationRepository;
     @Autowired
     private PricingEngine pricingEngine;
+    @Autowired
+    private AvailabilitySnapshot availabilitySnapshot;
+    @Autowired
+    private ReservationEventLog reservationEventLog;
     
     private final ObjectMapper objectMapper = new ObjectMapper();
 
@@ -44,12 +48,11 @@ public class CartService {
      * @param promoCode Optional promo code
      * @return The created CartItem with price snapshot and reservation
      * @throws IllegalArgumentException if cart or variant not found
-     * @throws IllegalStateException if insufficient stock
+     * @throws IllegalStateException if the cart is not active or stock is insufficient
      */
     @Transactional
     public CartItem addItemToCart(Long cartId, Long variantId, int quantity, String userTier, String promoCode) {
-        Cart cart = cartRepository.findById(cartId)
-            .orElseThrow(() -> new IllegalArgumentException("Cart not found: " + cartId));
+        Cart cart = touchActiveCart(cartId);
         Variant variant = variantRepository.findWithLockingById(variantId)
             .orElseThrow(() -> new IllegalArgumentException("Variant not found: " + variantId));
         int available = variant.getStockQuantity() - variant.getReservedQuantity();
@@ -59,6 +62,7 @@ public class CartService {
         // Reserve inventory
         variant.setReservedQuantity(variant.getReservedQuantity() + quantity);
         variantRepository.save(variant);
+        availabilitySnapshot.update(variant);
         // Create reservation
         Reservation reservation = new Reservation();
         reservation.setVariantId(variantId);
@@ -66,10 +70,20 @@ public class CartService {
         reservation.setExpiresAt(Instant.now().plusSeconds(900)); // 15 min
         reservation.setReleased(false);
         reservation = reservationRepository.save(reservation);
-        logger.info("Reservation created: reservationId={}, variantId={}, quantity={}, expiresAt={}", 
-            reservation.getId(), variantId, quantity, reservation.getExpiresAt());
+        reservationEventLog.record(ReservationEventLog.Type.CREATED, reservation.getId(), variantId, quantity);
         // Calculate price snapshot
         PricingEngine.PriceResult priceResult = pricingEngine.calculatePrice(variant.getProductId(), variantId, quantity, userTier, promoCode, cart.getUserId());
+        CartItem item = cartItemRepository.save(priceSnapshot(cartId, variantId, quantity, priceResult));
+        // Link reservation to cart item
+        reservation.setCartItemId(item.getId());
+        reservationRepository.save(reservation);
+        return item;
+    }
+
+    /**
+     * Builds an unsaved cart item holding the price and discounts of a quote.
+     */
+    public CartItem priceSnapshot(Long cartId, Long variantId, int quantity, PricingEngine.PriceResult priceResult) {
         CartItem item = new CartItem();
         item.setCartId(cartId);
         item.setVariantId(variantId);
@@ -83,10 +97,6 @@ public class CartService {
         }
         item.setSubtotal(priceResult.totalPrice);
         item.setSnapshotAt(Instant.now());
-        item = cartItemRepository.save(item);
-        // Link reservation to cart item
-        reservation.setCartItemId(item.getId());
-        reservationRepository.save(reservation);
         return item;
     }
 
@@ -97,7 +107,7 @@ public class CartService {
      * @param newQuantity New quantity
      * @return Updated CartItem
      * @throws IllegalArgumentException if cart item not found
-     * @throws IllegalStateException if insufficient stock for increase
+     * @throws IllegalStateException if the cart is not active or stock is insufficient for an increase
      */
     @Transactional
     public CartItem updateCartItemQuantity(Long cartItemId, int newQuantity) {
@@ -107,6 +117,7 @@ public class CartService {
         if (newQuantity <= 0) {
             throw new IllegalArgumentException("Quantity must be greater than 0");
         }
+        touchActiveCart(item.getCartId());
         
         int quantityDiff = newQuantity - item.getQuantity();
         
@@ -135,6 +146,7 @@ public class CartService {
             }
             
             variantRepository.save(variant);
+            availabilitySnapshot.update(variant);
             
             // Update reservation quantities (distribute across reservations if multiple)
             int remainingDiff = quantityDiff;
@@ -159,15 +171,16 @@ public class CartService {
                 // Extend reservation expiry
                 reservation.setExpiresAt(Instant.now().plusSeconds(900)); // 15 min
                 reservationRepository.save(reservation);
+                reservationEventLog.record(Boolean.TRUE.equals(reservation.getReleased())
+                        ? ReservationEventLog.Type.RELEASED : ReservationEventLog.Type.RESIZED,
+                    reservation.getId(), reservation.getVariantId(), reservation.getQuantity());
             }
         }
         
         // Recalculate subtotal using existing unit price (price snapshot)
         item.setQuantity(newQuantity);
-        item.setSubtotal(item.getUnitPrice() * newQuantity);
-        item = cartItemRepository.save(item);
-        
-        return item;
+        item.setSubtotal(item.getUnitPrice().times(newQuantity));
+        return cartItemRepository.save(item);
     }
 
     /**
@@ -179,6 +192,7 @@ public class CartService {
     public void removeCartItem(Long cartItemId) {
         CartItem item = cartItemRepository.findById(cartItemId)
             .orElseThrow(() -> new IllegalArgumentException("Cart item not found: " + cartItemId));
+        touchActiveCart(item.getCartId());
         
         // Find associated reservations
         List<Reservation> reservations = reservationRepository.findByCartItemIdAndNotReleased(cartItemId);
@@ -193,17 +207,32 @@ public class CartService {
             for (Reservation reservation : reservations) {
                 totalReleasedQuantity += reservation.getQuantity();
                 reservation.setReleased(true);
+                // The reservation row outlives the item; detach it so the delete below passes the foreign key
+                reservation.setCartItemId(null);
                 reservationRepository.save(reservation);
-                logger.info("Reservation released: reservationId={}, variantId={}, quantity={}", 
-                    reservation.getId(), reservation.getVariantId(), reservation.getQuantity());
+                reservationEventLog.record(ReservationEventLog.Type.RELEASED, reservation.getId(),
+                    reservation.getVariantId(), reservation.getQuantity());
             }
             
             // Decrease reserved quantity
             variant.setReservedQuantity(variant.getReservedQuantity() - totalReleasedQuantity);
             variantRepository.save(variant);
+            availabilitySnapshot.update(variant);
         }
         
         // Delete cart item
         cartItemRepository.delete(item);
     }
+
+    // Locks the cart before any variant (the order checkout and the expiry job use), so an idle cart cannot be
+    // expired while it is being changed, and records the activity
+    private Cart touchActiveCart(Long cartId) {
+        Cart cart = cartRepository.findWithLockingById(cartId)
+            .orElseThrow(() -> new IllegalArgumentException("Cart not found: " + cartId));
+        if (!"ACTIVE".equals(cart.getStatus())) {
+            throw new IllegalStateException("Cart is not active: " + cartId);
+        }
+        cart.setUpdatedAt(Instant.now());
+        return cart;
+    }
 }
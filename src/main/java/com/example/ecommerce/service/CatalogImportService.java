@@ -0,0 +1,484 @@
+package com.example.ecommerce.service;
+
+import com.example.ecommerce.entity.Product;
+import com.example.ecommerce.repository.CategoryRepository;
+import org.postgresql.PGConnection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bulk import of products and variants from CSV or NDJSON. Records are parsed and validated on the calling
+ * thread while a writer thread loads earlier batches through PostgreSQL COPY (or JDBC batches on other
+ * databases) into a temporary staging table and upserts them into the real table in one statement.
+ * Products are matched by slug and variants by SKU; existing variants keep their stock, which is owned
+ * by the stock-adjustment flow.
+ */
+@Lazy
+@Service
+public class CatalogImportService {
+    private static final Logger logger = LoggerFactory.getLogger(CatalogImportService.class);
+    private static final int MAX_REPORTED_ERRORS = 1000;
+    private static final int MAX_FINISHED_JOBS = 20;
+    private static final List<Object> END = new ArrayList<>();
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private CategoryRepository categoryRepository;
+    @Autowired
+    private ProductSearchIndex productSearchIndex;
+    @Autowired
+    private ProductDetailCache productDetailCache;
+    @Autowired
+    private PricingAttributeCache pricingAttributeCache;
+    @Autowired
+    private EntityCacheInvalidator entityCacheInvalidator;
+
+    @Value("${import.batch-size:5000}")
+    private int batchSize;
+
+    private final ExecutorService writers = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "catalog-import-writer");
+        t.setDaemon(true);
+        return t;
+    });
+    private final Map<String, ImportJob> jobs = new ConcurrentHashMap<>();
+    private final ArrayDeque<String> finishedJobIds = new ArrayDeque<>();
+
+    public static class RowError {
+        public long line;
+        public String message;
+
+        RowError(long line, String message) {
+            this.line = line;
+            this.message = message;
+        }
+    }
+
+    public static class ImportJob {
+        public final String id = UUID.randomUUID().toString();
+        public final String type;
+        public final Instant startedAt = Instant.now();
+        public volatile Instant finishedAt;
+        public volatile String status = "RUNNING";
+        public volatile String failure;
+        final AtomicLong read = new AtomicLong();
+        final AtomicLong inserted = new AtomicLong();
+        final AtomicLong updated = new AtomicLong();
+        final AtomicLong rejected = new AtomicLong();
+        final List<RowError> errors = Collections.synchronizedList(new ArrayList<>());
+
+        ImportJob(String type) {
+            this.type = type;
+        }
+
+        public long getRead() { return read.get(); }
+        public long getInserted() { return inserted.get(); }
+        public long getUpdated() { return updated.get(); }
+        public long getRejected() { return rejected.get(); }
+        // Copied under the list's lock: the import thread may append while the job is serialized
+        public List<RowError> getErrors() {
+            synchronized (errors) {
+                return new ArrayList<>(errors);
+            }
+        }
+
+        void reject(long line, String message) {
+            rejected.incrementAndGet();
+            if (errors.size() < MAX_REPORTED_ERRORS) errors.add(new RowError(line, message));
+        }
+    }
+
+    private static class ProductRow {
+        long line;
+        String name;
+        String slug;
+        String description;
+        BigDecimal basePrice;
+        String status;
+        Long categoryId;
+    }
+
+    private static class VariantRow {
+        long line;
+        String sku;
+        String title;
+        int stockQuantity;
+        BigDecimal priceAdjustment;
+        Long productId;
+        String productSlug;
+    }
+
+    /**
+     * @return Running imports and the most recently finished ones, for progress reporting
+     */
+    public List<ImportJob> listJobs() {
+        return new ArrayList<>(jobs.values());
+    }
+
+    /**
+     * Imports products (upsert by slug). Blocks until the stream is fully processed.
+     * @param in Request body
+     * @param contentType text/csv or application/x-ndjson
+     * @return The finished job with counts and the first per-row errors
+     */
+    public ImportJob importProducts(InputStream in, String contentType) {
+        Set<Long> categoryIds = new HashSet<>();
+        categoryRepository.findAll().forEach(c -> categoryIds.add(c.getId()));
+        return run("products", in, contentType, record -> validateProduct(record, categoryIds), this::writeProducts);
+    }
+
+    /**
+     * Imports variants (upsert by SKU), resolving the owning product by productId or productSlug.
+     * Blocks until the stream is fully processed.
+     */
+    public ImportJob importVariants(InputStream in, String contentType) {
+        return run("variants", in, contentType, this::validateVariant, this::writeVariants);
+    }
+
+    private interface Validator<T> {
+        T validate(ImportRecordReader.Record record);
+    }
+
+    private interface BatchWriter<T> {
+        void write(List<T> batch, ImportJob job);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> ImportJob run(String type, InputStream in, String contentType, Validator<T> validator, BatchWriter<T> writer) {
+        ImportRecordReader reader = new ImportRecordReader(in, contentType);
+        ImportJob job = new ImportJob(type);
+        jobs.put(job.id, job);
+        BlockingQueue<List<?>> queue = new ArrayBlockingQueue<>(4);
+        Future<?> writerTask = writers.submit(() -> {
+            while (true) {
+                List<?> batch = queue.take();
+                if (batch == END) return null;
+                writer.write((List<T>) batch, job);
+            }
+        });
+        try {
+            List<T> batch = new ArrayList<>(batchSize);
+            ImportRecordReader.Record record;
+            while ((record = reader.next()) != null) {
+                job.read.incrementAndGet();
+                if (record.error != null) {
+                    job.reject(record.line, record.error);
+                    continue;
+                }
+                try {
+                    batch.add(validator.validate(record));
+                } catch (IllegalArgumentException e) {
+                    job.reject(record.line, e.getMessage());
+                }
+                if (batch.size() >= batchSize) {
+                    hand(queue, batch, writerTask);
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+            if (!batch.isEmpty()) hand(queue, batch, writerTask);
+            hand(queue, END, writerTask);
+            writerTask.get();
+            job.status = "COMPLETED";
+        } catch (ExecutionException e) {
+            fail(job, e.getCause());
+        } catch (IOException | RuntimeException e) {
+            writerTask.cancel(true);
+            fail(job, e);
+        } catch (InterruptedException e) {
+            writerTask.cancel(true);
+            Thread.currentThread().interrupt();
+            fail(job, e);
+        } finally {
+            finish(job);
+        }
+        return job;
+    }
+
+    private void hand(BlockingQueue<List<?>> queue, List<?> batch, Future<?> writerTask) throws InterruptedException, ExecutionException {
+        // Back-pressure on the reader; bail out if the writer died instead of blocking forever.
+        while (!queue.offer(batch, 1, TimeUnit.SECONDS)) {
+            if (writerTask.isDone()) {
+                writerTask.get();
+                throw new IllegalStateException("Import writer stopped unexpectedly");
+            }
+        }
+    }
+
+    private void fail(ImportJob job, Throwable e) {
+        job.status = "FAILED";
+        job.failure = e.getMessage();
+        logger.error("Catalog import {} ({}) failed after {} records: {}", job.id, job.type, job.read.get(), e.getMessage());
+    }
+
+    private synchronized void finish(ImportJob job) {
+        job.finishedAt = Instant.now();
+        logger.info("Catalog import {} ({}) {}: read={}, inserted={}, updated={}, rejected={}",
+            job.id, job.type, job.status, job.read.get(), job.inserted.get(), job.updated.get(), job.rejected.get());
+        finishedJobIds.addLast(job.id);
+        while (finishedJobIds.size() > MAX_FINISHED_JOBS) {
+            jobs.remove(finishedJobIds.removeFirst());
+        }
+    }
+
+    private ProductRow validateProduct(ImportRecordReader.Record record, Set<Long> categoryIds) {
+        Map<String, String> f = record.fields;
+        ProductRow row = new ProductRow();
+        row.line = record.line;
+        row.name = requireText(f, "name", 255);
+        row.slug = requireText(f, "slug", 255);
+        row.description = f.get("description");
+        row.basePrice = money(f, "basePrice", true);
+        if (row.basePrice.signum() < 0) throw new IllegalArgumentException("basePrice must not be negative");
+        row.status = f.get("status") == null ? "ACTIVE" : f.get("status").toUpperCase();
+        if (!row.status.equals("ACTIVE") && !row.status.equals("ARCHIVED")) {
+            throw new IllegalArgumentException("status must be ACTIVE or ARCHIVED");
+        }
+        row.categoryId = optionalLong(f, "categoryId");
+        if (row.categoryId != null && !categoryIds.contains(row.categoryId)) {
+            throw new IllegalArgumentException("Unknown categoryId: " + row.categoryId);
+        }
+        return row;
+    }
+
+    private VariantRow validateVariant(ImportRecordReader.Record record) {
+        Map<String, String> f = record.fields;
+        VariantRow row = new VariantRow();
+        row.line = record.line;
+        row.sku = requireText(f, "sku", 64);
+        row.title = requireText(f, "title", 255);
+        Long stock = optionalLong(f, "stockQuantity");
+        if (stock == null || stock < 0 || stock > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("stockQuantity must be a non-negative integer");
+        }
+        row.stockQuantity = stock.intValue();
+        row.priceAdjustment = f.get("priceAdjustment") == null ? BigDecimal.ZERO : money(f, "priceAdjustment", true);
+        row.productId = optionalLong(f, "productId");
+        row.productSlug = f.get("productSlug");
+        if (row.productId == null && row.productSlug == null) {
+            throw new IllegalArgumentException("productId or productSlug is required");
+        }
+        return row;
+    }
+
+    private static String requireText(Map<String, String> f, String field, int maxLength) {
+        String v = f.get(field);
+        if (v == null || v.isBlank()) throw new IllegalArgumentException(field + " is required");
+        if (v.length() > maxLength) throw new IllegalArgumentException(field + " exceeds " + maxLength + " characters");
+        return v;
+    }
+
+    private static BigDecimal money(Map<String, String> f, String field, boolean required) {
+        String v = f.get(field);
+        if (v == null) {
+            if (required) throw new IllegalArgumentException(field + " is required");
+            return null;
+        }
+        try {
+            BigDecimal d = new BigDecimal(v.trim());
+            // DECIMAL(12,2)
+            if (d.scale() > 2 || d.precision() - d.scale() > 10) throw new NumberFormatException();
+            return d;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(field + " must be a decimal with at most 10 integer and 2 fraction digits");
+        }
+    }
+
+    private static Long optionalLong(Map<String, String> f, String field) {
+        String v = f.get(field);
+        if (v == null) return null;
+        try {
+            return Long.valueOf(v.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(field + " must be an integer");
+        }
+    }
+
+    private void writeProducts(List<ProductRow> rows, ImportJob job) {
+        // ON CONFLICT cannot touch the same row twice in one statement, so duplicates within a batch are rejected.
+        Map<String, ProductRow> bySlug = new LinkedHashMap<>();
+        for (ProductRow row : rows) {
+            if (bySlug.putIfAbsent(row.slug, row) != null) job.reject(row.line, "Duplicate slug in batch: " + row.slug);
+        }
+        List<ProductRow> unique = new ArrayList<>(bySlug.values());
+        List<Product> written = new ArrayList<>(unique.size());
+        List<Long> updatedIds = new ArrayList<>();
+        inTransaction(con -> {
+            try (Statement st = con.createStatement()) {
+                st.execute("CREATE TEMP TABLE import_products_stage (name VARCHAR(255), slug VARCHAR(255), description TEXT, "
+                    + "base_price DECIMAL(12,2), status VARCHAR(10), category_id INTEGER) ON COMMIT DROP");
+            }
+            List<Object[]> values = new ArrayList<>(unique.size());
+            for (ProductRow r : unique) {
+                values.add(new Object[] { r.name, r.slug, r.description, r.basePrice, r.status, r.categoryId });
+            }
+            stage(con, "import_products_stage", "name, slug, description, base_price, status, category_id", values);
+            try (PreparedStatement ps = con.prepareStatement(
+                    "INSERT INTO products (name, slug, description, base_price, status, category_id) "
+                    + "SELECT name, slug, description, base_price, status, category_id FROM import_products_stage "
+                    + "ON CONFLICT (slug) DO UPDATE SET name = EXCLUDED.name, description = EXCLUDED.description, "
+                    + "base_price = EXCLUDED.base_price, status = EXCLUDED.status, category_id = EXCLUDED.category_id, "
+                    + "version = products.version + 1, updated_at = NOW() "
+                    + "RETURNING id, slug, (xmax = 0) AS inserted");
+                 ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    ProductRow r = bySlug.get(rs.getString("slug"));
+                    Product p = new Product();
+                    p.setId(rs.getLong("id"));
+                    p.setName(r.name);
+                    p.setSlug(r.slug);
+                    p.setDescription(r.description);
+                    p.setStatus(r.status);
+                    written.add(p);
+                    if (!rs.getBoolean("inserted")) updatedIds.add(p.getId());
+                }
+            }
+        });
+        job.inserted.addAndGet(written.size() - updatedIds.size());
+        job.updated.addAndGet(updatedIds.size());
+        productSearchIndex.indexAll(written);
+        for (Long id : updatedIds) {
+            productDetailCache.evict(id);
+            pricingAttributeCache.evictProduct(id);
+        }
+        entityCacheInvalidator.evict(Product.class, updatedIds);
+    }
+
+    private void writeVariants(List<VariantRow> rows, ImportJob job) {
+        Map<String, VariantRow> bySku = new LinkedHashMap<>();
+        for (VariantRow row : rows) {
+            if (bySku.putIfAbsent(row.sku, row) != null) job.reject(row.line, "Duplicate sku in batch: " + row.sku);
+        }
+        List<VariantRow> unique = new ArrayList<>(bySku.values());
+        Set<String> returned = new HashSet<>();
+        Set<Long> touchedProducts = new HashSet<>();
+        List<Long> updatedVariantIds = new ArrayList<>();
+        inTransaction(con -> {
+            try (Statement st = con.createStatement()) {
+                st.execute("CREATE TEMP TABLE import_variants_stage (sku VARCHAR(64), title VARCHAR(255), stock_quantity INTEGER, "
+                    + "price_adjustment DECIMAL(12,2), product_id INTEGER, product_slug VARCHAR(255)) ON COMMIT DROP");
+            }
+            List<Object[]> values = new ArrayList<>(unique.size());
+            for (VariantRow r : unique) {
+                values.add(new Object[] { r.sku, r.title, r.stockQuantity, r.priceAdjustment, r.productId, r.productSlug });
+            }
+            stage(con, "import_variants_stage", "sku, title, stock_quantity, price_adjustment, product_id, product_slug", values);
+            try (PreparedStatement ps = con.prepareStatement(
+                    "INSERT INTO variants (sku, title, stock_quantity, reserved_quantity, price_adjustment, product_id) "
+                    + "SELECT s.sku, s.title, s.stock_quantity, 0, s.price_adjustment, p.id FROM import_variants_stage s "
+                    + "JOIN products p ON p.id = COALESCE(s.product_id, (SELECT id FROM products WHERE slug = s.product_slug)) "
+                    + "ON CONFLICT (sku) DO UPDATE SET title = EXCLUDED.title, price_adjustment = EXCLUDED.price_adjustment, "
+                    + "product_id = EXCLUDED.product_id, version = variants.version + 1, updated_at = NOW() "
+                    + "RETURNING id, sku, product_id, (xmax = 0) AS inserted");
+                 ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    returned.add(rs.getString("sku"));
+                    touchedProducts.add(rs.getLong("product_id"));
+                    if (!rs.getBoolean("inserted")) updatedVariantIds.add(rs.getLong("id"));
+                }
+            }
+        });
+        for (VariantRow r : unique) {
+            if (!returned.contains(r.sku)) {
+                job.reject(r.line, "Unknown product: " + (r.productId != null ? r.productId : r.productSlug));
+            }
+        }
+        job.inserted.addAndGet(returned.size() - updatedVariantIds.size());
+        job.updated.addAndGet(updatedVariantIds.size());
+        for (Long id : updatedVariantIds) {
+            pricingAttributeCache.evictVariant(id);
+        }
+        for (Long productId : touchedProducts) {
+            productDetailCache.evict(productId);
+        }
+    }
+
+    private interface ConnectionWork {
+        void run(Connection con) throws SQLException, IOException;
+    }
+
+    private void inTransaction(ConnectionWork work) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+            jdbcTemplate.execute((ConnectionCallback<Void>) con -> {
+                try {
+                    work.run(con);
+                } catch (IOException e) {
+                    throw new IllegalStateException("COPY into staging table failed", e);
+                }
+                return null;
+            }));
+    }
+
+    // COPY on PostgreSQL; a single multi-row JDBC batch elsewhere.
+    private void stage(Connection con, String table, String columns, List<Object[]> rows) throws SQLException, IOException {
+        if (con.isWrapperFor(PGConnection.class)) {
+            StringBuilder csv = new StringBuilder(rows.size() * 128);
+            for (Object[] row : rows) {
+                for (int i = 0; i < row.length; i++) {
+                    if (i > 0) csv.append(',');
+                    Object v = row[i];
+                    if (v instanceof String s) {
+                        csv.append('"').append(s.replace("\"", "\"\"")).append('"');
+                    } else if (v != null) {
+                        csv.append(v instanceof BigDecimal d ? d.toPlainString() : v.toString());
+                    }
+                }
+                csv.append('\n');
+            }
+            con.unwrap(PGConnection.class).getCopyAPI()
+                .copyIn("COPY " + table + " (" + columns + ") FROM STDIN WITH (FORMAT csv)", new StringReader(csv.toString()));
+            return;
+        }
+        int width = rows.isEmpty() ? 0 : rows.get(0).length;
+        String placeholders = String.join(", ", Collections.nCopies(width, "?"));
+        try (PreparedStatement ps = con.prepareStatement("INSERT INTO " + table + " (" + columns + ") VALUES (" + placeholders + ")")) {
+            for (Object[] row : rows) {
+                for (int i = 0; i < row.length; i++) {
+                    if (row[i] == null) ps.setNull(i + 1, Types.NULL);
+                    else ps.setObject(i + 1, row[i]);
+                }
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.ecommerce.service;
+
+import com.example.ecommerce.entity.Category;
+import com.example.ecommerce.repository.CategoryRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Service
+public class CategoryTreeCache {
+    private static final Logger logger = LoggerFactory.getLogger(CategoryTreeCache.class);
+    static final String INVALIDATION_CHANNEL = "cache:category-tree:invalidate";
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+    @Autowired
+    private RedisMessageListenerContainer listenerContainer;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final AtomicLong generation = new AtomicLong();
+    private volatile Snapshot snapshot;
+
+    public static final class CategoryNode {
+        public final Long id;
+        public final String name;
+        public final String slug;
+        public final Long parentId;
+        public final List<CategoryNode> children;
+
+        CategoryNode(Category c, List<CategoryNode> children) {
+            this.id = c.getId();
+            this.name = c.getName();
+            this.slug = c.getSlug();
+            this.parentId = c.getParentId();
+            this.children = children;
+        }
+    }
+
+    public static final class Snapshot {
+        public final List<CategoryNode> roots;
+        public final byte[] json;
+        public final String etag;
+
+        Snapshot(List<CategoryNode> roots, byte[] json) {
+            this.roots = roots;
+            this.json = json;
+            this.etag = "\"" + DigestUtils.md5DigestAsHex(json) + "\"";
+        }
+    }
+
+    @PostConstruct
+    void subscribe() {
+        listenerContainer.addMessageListener((message, pattern) -> evictLocal(), new ChannelTopic(INVALIDATION_CHANNEL));
+    }
+
+    /**
+     * Returns the current category tree, building it from the database if it has been invalidated.
+     * The returned snapshot is immutable and its JSON bytes can be written to the response as-is.
+     * @return Snapshot with the root nodes, serialized JSON and strong ETag
+     */
+    public Snapshot getSnapshot() {
+        Snapshot current = snapshot;
+        if (current != null) {
+            return current;
+        }
+        synchronized (this) {
+            if (snapshot != null) {
+                return snapshot;
+            }
+            long startGeneration = generation.get();
+            Snapshot built = build(categoryRepository.findAll());
+            // Only publish if no invalidation raced with the load; otherwise the next reader rebuilds.
+            if (generation.get() == startGeneration) {
+                snapshot = built;
+            }
+            return built;
+        }
+    }
+
+    /**
+     * Drops the cached tree on this node and tells every other node to do the same.
+     * Call after a category is created, updated or deleted.
+     */
+    public void invalidate() {
+        evictLocal();
+        try {
+            redisTemplate.convertAndSend(INVALIDATION_CHANNEL, "*");
+        } catch (Exception e) {
+            logger.warn("Failed to broadcast category tree invalidation: {}", e.getMessage());
+        }
+    }
+
+    void evictLocal() {
+        generation.incrementAndGet();
+        snapshot = null;
+    }
+
+    private Snapshot build(List<Category> all) {
+        Map<Long, List<Category>> childrenByParent = new HashMap<>();
+        Map<Long, Category> byId = new HashMap<>();
+        for (Category c : all) {
+            byId.put(c.getId(), c);
+        }
+        List<Category> rootCategories = new ArrayList<>();
+        for (Category c : all) {
+            if (c.getParentId() != null && byId.containsKey(c.getParentId())) {
+                childrenByParent.computeIfAbsent(c.getParentId(), k -> new ArrayList<>()).add(c);
+            } else {
+                rootCategories.add(c);
+            }
+        }
+        List<CategoryNode> roots = new ArrayList<>();
+        for (Category root : rootCategories) {
+            roots.add(toNode(root, childrenByParent));
+        }
+        roots = Collections.unmodifiableList(roots);
+        try {
+            return new Snapshot(roots, objectMapper.writeValueAsBytes(roots));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize category tree", e);
+        }
+    }
+
+    private CategoryNode toNode(Category category, Map<Long, List<Category>> childrenByParent) {
+        List<Category> children = childrenByParent.getOrDefault(category.getId(), Collections.emptyList());
+        List<CategoryNode> childNodes = new ArrayList<>(children.size());
+        for (Category child : children) {
+            childNodes.add(toNode(child, childrenByParent));
+        }
+        return new CategoryNode(category, Collections.unmodifiableList(childNodes));
+    }
+}
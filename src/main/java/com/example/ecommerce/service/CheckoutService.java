@@ -7,8 +7,14 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 @Service
@@ -27,6 +33,12 @@ public class CheckoutService {
     private CartItemRepository cartItemRepository;
     @Autowired
     private PricingRuleUsageRepository pricingRuleUsageRepository;
+    @Autowired
+    private AvailabilitySnapshot availabilitySnapshot;
+    @Autowired
+    private ReservationEventLog reservationEventLog;
+    @Autowired
+    private SalesVelocityTracker salesVelocityTracker;
 
     private final ObjectMapper objectMapper = new ObjectMapper();
 
@@ -39,31 +51,72 @@ public class CheckoutService {
     public void checkoutCart(Long cartId, List<Long> reservationIds) {
         try {
             // Validate cart
-            Cart cart = cartRepository.findById(cartId)
+            Cart cart = cartRepository.findWithLockingById(cartId)
                 .orElseThrow(() -> new IllegalArgumentException("Cart not found: " + cartId));
+            if (!"ACTIVE".equals(cart.getStatus())) {
+                throw new IllegalStateException("Cart is not active: " + cartId);
+            }
 
-            double totalOrderAmount = 0.0;
-
+            // Load and validate everything before the first write, so the per-row lookups below do not force
+            // intermediate flushes and the updates go out as JDBC batches at commit.
+            Map<Long, Reservation> reservations = new HashMap<>();
+            for (Reservation r : reservationRepository.findAllById(reservationIds)) {
+                reservations.put(r.getId(), r);
+            }
+            Set<Long> cartItemIds = new HashSet<>();
             for (Long reservationId : reservationIds) {
-                Reservation reservation = reservationRepository.findById(reservationId)
-                    .orElseThrow(() -> new IllegalArgumentException("Reservation not found: " + reservationId));
+                Reservation reservation = reservations.get(reservationId);
+                if (reservation == null) {
+                    throw new IllegalArgumentException("Reservation not found: " + reservationId);
+                }
+                cartItemIds.add(reservation.getCartItemId());
+            }
+            Map<Long, CartItem> cartItems = new HashMap<>();
+            for (CartItem item : cartItemRepository.findAllById(cartItemIds)) {
+                cartItems.put(item.getId(), item);
+            }
+            for (Long reservationId : reservationIds) {
+                Reservation reservation = reservations.get(reservationId);
                 if (Boolean.TRUE.equals(reservation.getReleased())) {
                     String errorMsg = "Reservation already released: " + reservationId;
                     logger.error("Checkout failed for cart {}: {}", cartId, errorMsg);
                     throw new IllegalStateException(errorMsg);
                 }
                 // Ensure reservation belongs to cart via cart item -> cart
-                CartItem cartItem = cartItemRepository.findById(reservation.getCartItemId())
-                    .orElseThrow(() -> new IllegalArgumentException("Cart item not found for reservation: " + reservationId));
+                CartItem cartItem = cartItems.get(reservation.getCartItemId());
+                if (cartItem == null) {
+                    throw new IllegalArgumentException("Cart item not found for reservation: " + reservationId);
+                }
                 if (!cartItem.getCartId().equals(cartId)) {
                     String errorMsg = "Reservation " + reservationId + " does not belong to cart " + cartId;
                     logger.error("Checkout failed for cart {}: {}", cartId, errorMsg);
                     throw new IllegalStateException(errorMsg);
                 }
+            }
+
+            // Lock the variant rows (SELECT ... FOR UPDATE) in id order, the same order bulk stock updates use
+            Map<Long, Variant> variants = new TreeMap<>();
+            for (Reservation reservation : reservations.values()) {
+                variants.put(reservation.getVariantId(), null);
+            }
+            for (Long variantId : variants.keySet()) {
+                variants.put(variantId, variantRepository.findWithLockingById(variantId)
+                    .orElseThrow(() -> new IllegalArgumentException("Variant not found: " + variantId)));
+            }
 
-                // Lock the variant row for update using SELECT ... FOR UPDATE
-                Variant variant = variantRepository.findWithLockingById(reservation.getVariantId())
-                    .orElseThrow(() -> new IllegalArgumentException("Variant not found: " + reservation.getVariantId()));
+            Map<Long, PricingRuleUsage> usages = loadRuleUsages(cart.getUserId(), cartItems.values());
+
+            long totalCents = 0;
+            Map<Long, Integer> unitsSold = new HashMap<>();
+            for (Long reservationId : reservationIds) {
+                Reservation reservation = reservations.get(reservationId);
+                if (Boolean.TRUE.equals(reservation.getReleased())) {
+                    String errorMsg = "Reservation already released: " + reservationId;
+                    logger.error("Checkout failed for cart {}: {}", cartId, errorMsg);
+                    throw new IllegalStateException(errorMsg);
+                }
+                CartItem cartItem = cartItems.get(reservation.getCartItemId());
+                Variant variant = variants.get(reservation.getVariantId());
                 if (variant.getStockQuantity() < reservation.getQuantity()) {
                     String errorMsg = "Insufficient stock for variant: " + variant.getId() + ", required: " + reservation.getQuantity() + ", available: " + variant.getStockQuantity();
                     logger.error("Checkout failed for cart {}: {}", cartId, errorMsg);
@@ -73,52 +126,77 @@ public class CheckoutService {
                 variant.setStockQuantity(variant.getStockQuantity() - reservation.getQuantity());
                 variant.setReservedQuantity(variant.getReservedQuantity() - reservation.getQuantity());
                 reservation.setReleased(true);
-                variantRepository.save(variant);
-                reservationRepository.save(reservation);
+                reservationEventLog.record(ReservationEventLog.Type.CHECKED_OUT, reservation.getId(),
+                    variant.getId(), reservation.getQuantity());
+                unitsSold.merge(variant.getId(), reservation.getQuantity(), Integer::sum);
 
-                // Accumulate total using snapshot pricing
-                totalOrderAmount += cartItem.getUnitPrice() * cartItem.getQuantity();
+                // Accumulate total from the snapshot line totals, so the order total is exactly their sum
+                totalCents = Math.addExact(totalCents, cartItem.getSubtotal().cents());
 
                 // Track pricing rule usage based on discounts JSON
-                updateRuleUsageFromCartItem(cart.getUserId(), cartItem);
+                updateRuleUsageFromCartItem(cartItem, usages);
             }
+            variantRepository.saveAll(variants.values());
+            availabilitySnapshot.update(variants.values());
+            reservationRepository.saveAll(reservations.values());
+            pricingRuleUsageRepository.saveAll(usages.values());
             // Update cart status
             cart.setStatus("CHECKED_OUT");
             cartRepository.save(cart);
             // Create order
             Order order = new Order();
             order.setCartId(cartId);
-            order.setTotal(totalOrderAmount);
+            order.setTotal(Money.ofCents(totalCents));
             orderRepository.save(order);
-            logger.info("Checkout successful for cart {}: orderId={}, total={}", cartId, order.getId(), totalOrderAmount);
+            salesVelocityTracker.recordSales(unitsSold);
+            logger.info("Checkout successful for cart {}: orderId={}, total={}", cartId, order.getId(), order.getTotal());
         } catch (Exception e) {
             logger.error("Checkout failed for cart {}: {}", cartId, e.getMessage(), e);
             throw e;
         }
     }
 
-    private void updateRuleUsageFromCartItem(Long userId, CartItem cartItem) {
-        if (cartItem.getDiscounts() == null || cartItem.getDiscounts().isEmpty()) return;
+    // Existing usage rows for every rule referenced by the cart items, keyed by rule id
+    private Map<Long, PricingRuleUsage> loadRuleUsages(Long userId, Collection<CartItem> cartItems) {
+        Map<Long, PricingRuleUsage> usages = new HashMap<>();
+        for (CartItem cartItem : cartItems) {
+            for (Long ruleId : ruleIds(cartItem)) {
+                if (!usages.containsKey(ruleId)) {
+                    usages.put(ruleId, pricingRuleUsageRepository.findByRuleIdAndUserId(ruleId, userId)
+                        .orElseGet(() -> {
+                            PricingRuleUsage u = new PricingRuleUsage();
+                            u.setRuleId(ruleId);
+                            u.setUserId(userId);
+                            u.setUsedCount(0L);
+                            return u;
+                        }));
+                }
+            }
+        }
+        return usages;
+    }
+
+    private void updateRuleUsageFromCartItem(CartItem cartItem, Map<Long, PricingRuleUsage> usages) {
+        for (Long ruleId : ruleIds(cartItem)) {
+            PricingRuleUsage usage = usages.get(ruleId);
+            usage.setUsedCount(usage.getUsedCount() + 1);
+        }
+    }
+
+    private List<Long> ruleIds(CartItem cartItem) {
+        List<Long> ruleIds = new ArrayList<>();
+        if (cartItem.getDiscounts() == null || cartItem.getDiscounts().isEmpty()) return ruleIds;
         try {
             List<Map<String, Object>> discounts = objectMapper.readValue(cartItem.getDiscounts(), List.class);
             for (Map<String, Object> d : discounts) {
                 Object ruleIdObj = d.get("rule_id");
                 if (ruleIdObj == null) continue;
-                Long ruleId = ((Number) ruleIdObj).longValue();
-                PricingRuleUsage usage = pricingRuleUsageRepository.findByRuleIdAndUserId(ruleId, userId)
-                    .orElseGet(() -> {
-                        PricingRuleUsage u = new PricingRuleUsage();
-                        u.setRuleId(ruleId);
-                        u.setUserId(userId);
-                        u.setUsedCount(0L);
-                        return u;
-                    });
-                usage.setUsedCount(usage.getUsedCount() + 1);
-                pricingRuleUsageRepository.save(usage);
+                ruleIds.add(((Number) ruleIdObj).longValue());
             }
         } catch (Exception e) {
             logger.error("Failed to update pricing rule usage for cartItem {}: {}", cartItem.getId(), e.getMessage());
             throw new IllegalStateException("Failed to update pricing rule usage", e);
         }
+        return ruleIds;
     }
 }
@@ -0,0 +1,187 @@
+package com.example.ecommerce.service;
+
+import com.example.ecommerce.config.ReplicaRoutingDataSource;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps the per-node Hibernate second-level cache consistent across nodes. Every committed insert, update or
+ * delete of a cached entity is broadcast over Redis; the other nodes evict the entity and the query-result cache.
+ * Writes that bypass Hibernate (native SQL) must call {@link #evict(Class, Collection)} themselves.
+ *
+ * Hibernate reloads an evicted entity in whatever transaction asks next, which may be a read-only one on a replica
+ * that has not replayed the write yet. With replicas configured every eviction is therefore repeated after the
+ * replica max lag, bounding that staleness to the same window as any other replica read.
+ */
+@Service
+public class EntityCacheInvalidator {
+    private static final Logger logger = LoggerFactory.getLogger(EntityCacheInvalidator.class);
+    static final String INVALIDATION_CHANNEL = "cache:entities:invalidate";
+
+    // Lets a node skip its own broadcasts: its cache was already updated by Hibernate in the transaction
+    private final String nodeId = UUID.randomUUID().toString();
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+    @Autowired
+    private RedisMessageListenerContainer listenerContainer;
+
+    @Autowired
+    private ReplicaRoutingDataSource replicaRoutingDataSource;
+
+    private SessionFactoryImplementor sessionFactory;
+    private ScheduledExecutorService lagEvictions;
+
+    @PostConstruct
+    void init() {
+        sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        if (replicaRoutingDataSource.hasReplicas()) {
+            lagEvictions = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "entity-cache-lag-evictions");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        CommitListener listener = new CommitListener();
+        EventListenerRegistry registry = sessionFactory.getServiceRegistry().getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_COMMIT_INSERT, listener);
+        registry.appendListeners(EventType.POST_COMMIT_UPDATE, listener);
+        registry.appendListeners(EventType.POST_COMMIT_DELETE, listener);
+        listenerContainer.addMessageListener((message, pattern) -> onMessage(new String(message.getBody())),
+            new ChannelTopic(INVALIDATION_CHANNEL));
+    }
+
+    @PreDestroy
+    void stop() {
+        if (lagEvictions != null) lagEvictions.shutdownNow();
+    }
+
+    /**
+     * Evicts entities written outside Hibernate on every node (including this one) once the current
+     * transaction (if any) commits.
+     */
+    public void evict(Class<?> entityClass, Collection<Long> ids) {
+        if (ids.isEmpty()) return;
+        String entityName = entityClass.getName();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evictLocal(entityName, ids);
+                    broadcast(entityName, ids);
+                }
+            });
+        } else {
+            evictLocal(entityName, ids);
+            broadcast(entityName, ids);
+        }
+    }
+
+    private void broadcast(String entityName, Collection<?> ids) {
+        String message = nodeId + "|" + entityName + "|"
+            + ids.stream().map(String::valueOf).collect(Collectors.joining(","));
+        try {
+            redisTemplate.convertAndSend(INVALIDATION_CHANNEL, message);
+        } catch (Exception e) {
+            logger.warn("Failed to broadcast entity cache invalidation for {}: {}", entityName, e.getMessage());
+        }
+    }
+
+    private void onMessage(String message) {
+        String[] parts = message.split("\\|", 3);
+        if (parts.length != 3) {
+            logger.warn("Ignoring malformed entity cache invalidation {}", message);
+            return;
+        }
+        if (nodeId.equals(parts[0])) return;
+        try {
+            evictLocal(parts[1], parts[2].isEmpty()
+                ? Collections.emptyList()
+                : Arrays.stream(parts[2].split(",")).map(Long::valueOf).collect(Collectors.toList()));
+        } catch (RuntimeException e) {
+            logger.warn("Ignoring malformed entity cache invalidation {}: {}", message, e.getMessage());
+        }
+    }
+
+    private void evictLocal(String entityName, Collection<Long> ids) {
+        evictNow(entityName, ids);
+        if (lagEvictions != null) {
+            lagEvictions.schedule(() -> evictNow(entityName, ids),
+                replicaRoutingDataSource.getMaxLag().toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void evictNow(String entityName, Collection<Long> ids) {
+        for (Long id : ids) {
+            sessionFactory.getCache().evictEntityData(entityName, id);
+        }
+        // Cached query results may reference rows that changed; they are cheap to rebuild
+        sessionFactory.getCache().evictDefaultQueryRegion();
+    }
+
+    private class CommitListener implements PostCommitInsertEventListener, PostCommitUpdateEventListener,
+            PostCommitDeleteEventListener {
+
+        @Override
+        public boolean requiresPostCommitHandling(EntityPersister persister) {
+            return persister.canWriteToCache();
+        }
+
+        @Override
+        public void onPostInsert(PostInsertEvent event) {
+            broadcast(event.getPersister().getEntityName(), Collections.singletonList(event.getId()));
+        }
+
+        @Override
+        public void onPostUpdate(PostUpdateEvent event) {
+            broadcast(event.getPersister().getEntityName(), Collections.singletonList(event.getId()));
+        }
+
+        @Override
+        public void onPostDelete(PostDeleteEvent event) {
+            broadcast(event.getPersister().getEntityName(), Collections.singletonList(event.getId()));
+        }
+
+        @Override
+        public void onPostInsertCommitFailed(PostInsertEvent event) {
+        }
+
+        @Override
+        public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+        }
+
+        @Override
+        public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.ecommerce.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads import records one at a time from a CSV (RFC 4180, header row required) or NDJSON stream.
+ * Field values are returned as strings; typing and validation are left to the caller.
+ */
+class ImportRecordReader {
+    static final String CSV = "text/csv";
+    static final String NDJSON = "application/x-ndjson";
+
+    static class Record {
+        final long line;
+        final Map<String, String> fields;
+        final String error;
+
+        Record(long line, Map<String, String> fields, String error) {
+            this.line = line;
+            this.fields = fields;
+            this.error = error;
+        }
+    }
+
+    private final BufferedReader reader;
+    private final boolean csv;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private List<String> header;
+    private long line;
+    private long rowStart;
+
+    ImportRecordReader(InputStream in, String contentType) {
+        this.reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 64 * 1024);
+        if (contentType != null && contentType.toLowerCase().startsWith(CSV)) {
+            this.csv = true;
+        } else if (contentType != null && contentType.toLowerCase().startsWith(NDJSON)) {
+            this.csv = false;
+        } else {
+            throw new IllegalArgumentException("Unsupported import content type: " + contentType + " (expected " + CSV + " or " + NDJSON + ")");
+        }
+    }
+
+    /**
+     * @return The next record, or null at end of stream. Malformed input yields a record with an error set.
+     */
+    Record next() throws IOException {
+        return csv ? nextCsv() : nextNdjson();
+    }
+
+    private Record nextNdjson() throws IOException {
+        String text;
+        do {
+            text = reader.readLine();
+            if (text == null) return null;
+            line++;
+        } while (text.isBlank());
+        try {
+            JsonNode node = objectMapper.readTree(text);
+            if (!node.isObject()) return new Record(line, null, "Expected a JSON object");
+            Map<String, String> fields = new HashMap<>();
+            Iterator<Map.Entry<String, JsonNode>> it = node.fields();
+            while (it.hasNext()) {
+                Map.Entry<String, JsonNode> e = it.next();
+                fields.put(e.getKey(), e.getValue().isNull() ? null : e.getValue().asText());
+            }
+            return new Record(line, fields, null);
+        } catch (JsonProcessingException e) {
+            return new Record(line, null, "Malformed JSON: " + e.getOriginalMessage());
+        }
+    }
+
+    private Record nextCsv() throws IOException {
+        if (header == null) {
+            header = readCsvRow();
+            if (header == null) return null;
+        }
+        List<String> values;
+        do {
+            values = readCsvRow();
+            if (values == null) return null;
+        } while (values.size() == 1 && values.get(0).isEmpty());
+        if (values.size() != header.size()) {
+            return new Record(rowStart, null, "Expected " + header.size() + " columns but found " + values.size());
+        }
+        Map<String, String> fields = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            String v = values.get(i);
+            fields.put(header.get(i).trim(), v.isEmpty() ? null : v);
+        }
+        return new Record(rowStart, fields, null);
+    }
+
+    // One logical CSV row; quoted fields may contain commas, doubled quotes and line breaks.
+    private List<String> readCsvRow() throws IOException {
+        int c = reader.read();
+        if (c == -1) return null;
+        line++;
+        rowStart = line;
+        List<String> values = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        while (true) {
+            if (quoted) {
+                if (c == -1) {
+                    values.add(field.toString());
+                    return values;
+                }
+                if (c == '"') {
+                    reader.mark(1);
+                    int n = reader.read();
+                    if (n == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        reader.reset();
+                    }
+                } else {
+                    if (c == '\n') line++;
+                    field.append((char) c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n' || c == -1) {
+                values.add(field.toString());
+                return values;
+            } else if (c != '\r') {
+                field.append((char) c);
+            }
+            c = reader.read();
+        }
+    }
+}
@@ -1,28 +1,43 @@
 package com.example.ecommerce.service;
 
 import com.example.ecommerce.entity.User;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.security.Keys;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
 import java.util.Date;
 
 @Service
 public class JwtService {
-    private final String SECRET = "your_jwt_secret_key";
-    private final long EXPIRATION = 86400000; // 1 day
+    private final SecretKey key;
+    private final JwtParser parser;
+    private final long expiration;
+
+    public JwtService(@Value("${jwt.secret}") String secret, @Value("${jwt.expiration:86400000}") long expiration) {
+        byte[] bytes = secret.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length < 32) {
+            throw new IllegalStateException("jwt.secret must be at least 32 bytes for HS256");
+        }
+        this.key = Keys.hmacShaKeyFor(bytes);
+        this.parser = Jwts.parserBuilder().setSigningKey(key).build();
+        this.expiration = expiration;
+    }
 
     public String generateToken(User user) {
         return Jwts.builder()
             .setSubject(user.getEmail())
             .claim("tier", user.getTier())
             .setIssuedAt(new Date())
-            .setExpiration(new Date(System.currentTimeMillis() + EXPIRATION))
-            .signWith(SignatureAlgorithm.HS256, SECRET)
+            .setExpiration(new Date(System.currentTimeMillis() + expiration))
+            .signWith(key)
             .compact();
     }
 
     public Claims validateToken(String token) {
-        return Jwts.parser().setSigningKey(SECRET).parseClaimsJws(token).getBody();
+        return parser.parseClaimsJws(token).getBody();
     }
 }
@@ -0,0 +1,167 @@
+package com.example.ecommerce.service;
+
+import com.example.ecommerce.config.ReplicaRoutingDataSource;
+import com.example.ecommerce.entity.Money;
+import com.example.ecommerce.entity.Product;
+import com.example.ecommerce.entity.Variant;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.CacheRetrieveMode;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.time.Duration;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Per-node near-cache of the product and variant attributes the pricing engine needs. Stock and reservation
+ * counters are deliberately not cached: anything that reserves or sells stock still locks the variant row.
+ * Misses are loaded from the primary, bypassing the second-level cache, so an entry evicted after a commit is
+ * not refilled from a replica that has not replayed that commit yet.
+ */
+@Service
+public class PricingAttributeCache {
+    private static final Logger logger = LoggerFactory.getLogger(PricingAttributeCache.class);
+    static final String INVALIDATION_CHANNEL = "cache:pricing-attributes:invalidate";
+
+    private static final Map<String, Object> BYPASS_L2 =
+        Map.of("jakarta.persistence.cache.retrieveMode", CacheRetrieveMode.BYPASS);
+
+    @PersistenceContext
+    private EntityManager entityManager;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+    @Autowired
+    private RedisMessageListenerContainer listenerContainer;
+
+    @Value("${pricing.near-cache.max-size:100000}")
+    private long maxSize;
+    @Value("${pricing.near-cache.ttl-seconds:600}")
+    private long ttlSeconds;
+
+    private Cache<Long, ProductPricing> products;
+    private Cache<Long, VariantPricing> variants;
+    private TransactionTemplate loadTransaction;
+
+    public static final class ProductPricing {
+        public final Money basePrice;
+        public final Long categoryId;
+
+        ProductPricing(Money basePrice, Long categoryId) {
+            this.basePrice = basePrice;
+            this.categoryId = categoryId;
+        }
+    }
+
+    public static final class VariantPricing {
+        public final Money priceAdjustment;
+        public final Long productId;
+
+        VariantPricing(Money priceAdjustment, Long productId) {
+            this.priceAdjustment = priceAdjustment;
+            this.productId = productId;
+        }
+    }
+
+    @PostConstruct
+    void init() {
+        products = Caffeine.newBuilder().maximumSize(maxSize).expireAfterWrite(Duration.ofSeconds(ttlSeconds)).build();
+        variants = Caffeine.newBuilder().maximumSize(maxSize).expireAfterWrite(Duration.ofSeconds(ttlSeconds)).build();
+        // Own transaction: a caller's read-only transaction may already hold a replica connection
+        loadTransaction = new TransactionTemplate(transactionManager);
+        loadTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        loadTransaction.setReadOnly(true);
+        listenerContainer.addMessageListener((message, pattern) -> evictLocal(new String(message.getBody())),
+            new ChannelTopic(INVALIDATION_CHANNEL));
+    }
+
+    /**
+     * @param productId Product ID
+     * @return Cached pricing attributes, or null if the product does not exist
+     */
+    public ProductPricing getProduct(Long productId) {
+        return products.get(productId, id -> loadFromPrimary(Product.class, id,
+            p -> new ProductPricing(p.getBasePrice(), p.getCategoryId())));
+    }
+
+    /**
+     * @param variantId Variant ID
+     * @return Cached pricing attributes, or null if the variant does not exist
+     */
+    public VariantPricing getVariant(Long variantId) {
+        return variants.get(variantId, id -> loadFromPrimary(Variant.class, id,
+            v -> new VariantPricing(v.getPriceAdjustment() != null ? v.getPriceAdjustment() : Money.ZERO, v.getProductId())));
+    }
+
+    private <E, T> T loadFromPrimary(Class<E> entityClass, Long id, Function<E, T> mapper) {
+        return ReplicaRoutingDataSource.onPrimary(() -> loadTransaction.execute(status -> {
+            E entity = entityManager.find(entityClass, id, BYPASS_L2);
+            return entity != null ? mapper.apply(entity) : null;
+        }));
+    }
+
+    /**
+     * Evicts a product's pricing attributes on every node once the current transaction (if any) commits.
+     */
+    public void evictProduct(Long productId) {
+        if (productId != null) evict("p:" + productId);
+    }
+
+    /**
+     * Evicts a variant's pricing attributes on every node once the current transaction (if any) commits.
+     */
+    public void evictVariant(Long variantId) {
+        if (variantId != null) evict("v:" + variantId);
+    }
+
+    private void evict(String key) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evictAndBroadcast(key);
+                }
+            });
+        } else {
+            evictAndBroadcast(key);
+        }
+    }
+
+    private void evictAndBroadcast(String key) {
+        evictLocal(key);
+        try {
+            redisTemplate.convertAndSend(INVALIDATION_CHANNEL, key);
+        } catch (Exception e) {
+            logger.warn("Failed to broadcast pricing attribute invalidation {}: {}", key, e.getMessage());
+        }
+    }
+
+    private void evictLocal(String key) {
+        try {
+            Long id = Long.valueOf(key.substring(2));
+            if (key.startsWith("p:")) {
+                products.invalidate(id);
+            } else if (key.startsWith("v:")) {
+                variants.invalidate(id);
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Ignoring malformed pricing attribute invalidation {}: {}", key, e.getMessage());
+        }
+    }
+}
@@ -1,36 +1,35 @@
 package com.example.ecommerce.service;
 
-import com.example.ecommerce.entity.Product;
-import com.example.ecommerce.entity.Variant;
+import com.example.ecommerce.entity.Money;
 import com.example.ecommerce.entity.PricingRule;
 import com.example.ecommerce.entity.PricingRuleUsage;
-import com.example.ecommerce.repository.ProductRepository;
-import com.example.ecommerce.repository.VariantRepository;
 import com.example.ecommerce.repository.PricingRuleRepository;
 import com.example.ecommerce.repository.PricingRuleUsageRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import java.util.*;
-import java.util.Optional;
 import java.time.Instant;
 
 @Service
 public class PricingEngine {
     @Autowired
-    private ProductRepository productRepository;
-    @Autowired
-    private VariantRepository variantRepository;
+    private PricingAttributeCache pricingAttributeCache;
     @Autowired
     private PricingRuleRepository pricingRuleRepository;
     @Autowired
     private PricingRuleUsageRepository pricingRuleUsageRepository;
+    @Autowired
+    private SalesVelocityTracker salesVelocityTracker;
+    @Autowired
+    private AvailabilitySnapshot availabilitySnapshot;
 
     public static class PriceResult {
-        public double basePrice;
-        public double variantAdjustment;
+        public Money basePrice;
+        public Money variantAdjustment;
         public List<Map<String, Object>> appliedRules = new ArrayList<>();
-        public double finalUnitPrice;
-        public double totalPrice;
+        public Money finalUnitPrice;
+        public Money totalPrice;
     }
 
     /**
@@ -43,37 +42,77 @@ public class PricingEngine {
      * @param promoCode Promo code (optional)
      * @return PriceResult with breakdown
      */
+    @Transactional(readOnly = true)
     public PriceResult calculatePrice(Long productId, Long variantId, int quantity, String userTier, String promoCode, Long userId) {
         PriceResult result = new PriceResult();
-        Optional<Product> productOpt = productRepository.findById(productId);
-        if (productOpt.isEmpty()) throw new IllegalArgumentException("Product not found");
-        Product product = productOpt.get();
-        result.basePrice = product.getBasePrice();
-        result.variantAdjustment = 0.0;
+        // Pricing attributes come from the near-cache; stock is never read here.
+        PricingAttributeCache.ProductPricing product = pricingAttributeCache.getProduct(productId);
+        if (product == null) throw new IllegalArgumentException("Product not found");
+        result.basePrice = product.basePrice;
+        result.variantAdjustment = Money.ZERO;
         if (variantId != null) {
-            Optional<Variant> variantOpt = variantRepository.findById(variantId);
-            if (variantOpt.isEmpty()) throw new IllegalArgumentException("Variant not found");
-            Variant variant = variantOpt.get();
-            result.variantAdjustment = variant.getPriceAdjustment();
+            PricingAttributeCache.VariantPricing variant = pricingAttributeCache.getVariant(variantId);
+            if (variant == null) throw new IllegalArgumentException("Variant not found");
+            result.variantAdjustment = variant.priceAdjustment;
         }
-        double price = result.basePrice + result.variantAdjustment;
+        // Running price in cents; each adjustment is rounded to the cent as it is applied
+        long price = result.basePrice.plus(result.variantAdjustment).cents();
 
         // 2. Fetch and apply rules in order
         Instant now = Instant.now();
         List<PricingRule> rules = pricingRuleRepository.findActiveValidRules(now); // Optimized query for active rules
+        // Demand adjusts the market price first, so discounts below apply to it. percentage is a markup here
+        // (negative lowers the price); velocity is per variant, so quotes without a variant skip these rules.
+        for (PricingRule rule : rules) {
+            if ("DEMAND".equalsIgnoreCase(rule.getType()) && Boolean.TRUE.equals(rule.getActive()) &&
+                variantId != null && rule.getPercentage() != null && rule.getWindowMinutes() != null &&
+                matchesTarget(rule, productId, variantId, product.categoryId)) {
+                long sold = salesVelocityTracker.unitsSold(variantId, rule.getWindowMinutes());
+                if (sold >= 0 && withinThresholds(rule, sold) && usageAllowed(rule, userId)) {
+                    long adjustment = Money.percentOf(price, rule.getPercentage());
+                    price += adjustment;
+                    Map<String, Object> applied = new HashMap<>();
+                    applied.put("rule_id", rule.getId());
+                    applied.put("type", "DEMAND");
+                    applied.put("units_sold", sold);
+                    applied.put("discount_amount", Money.ofCents(-adjustment));
+                    result.appliedRules.add(applied);
+                }
+            }
+        }
+        // Scarcity works the same way on units available (stock minus reserved), read from a snapshot that may
+        // trail the variant row by a few seconds
+        Integer available = null;
+        for (PricingRule rule : rules) {
+            if ("SCARCITY".equalsIgnoreCase(rule.getType()) && Boolean.TRUE.equals(rule.getActive()) &&
+                variantId != null && rule.getPercentage() != null &&
+                matchesTarget(rule, productId, variantId, product.categoryId)) {
+                if (available == null) available = availabilitySnapshot.available(variantId);
+                if (available != null && withinThresholds(rule, available) && usageAllowed(rule, userId)) {
+                    long adjustment = Money.percentOf(price, rule.getPercentage());
+                    price += adjustment;
+                    Map<String, Object> applied = new HashMap<>();
+                    applied.put("rule_id", rule.getId());
+                    applied.put("type", "SCARCITY");
+                    applied.put("units_available", available);
+                    applied.put("discount_amount", Money.ofCents(-adjustment));
+                    result.appliedRules.add(applied);
+                }
+            }
+        }
         // a. Seasonal/time-based
         for (PricingRule rule : rules) {
             if ("SEASONAL".equalsIgnoreCase(rule.getType()) && Boolean.TRUE.equals(rule.getActive()) &&
                 (rule.getStartAt() == null || !now.isBefore(rule.getStartAt())) &&
                 (rule.getEndAt() == null || !now.isAfter(rule.getEndAt())) &&
-                matchesTarget(rule, productId, variantId, product.getCategoryId()) &&
+                matchesTarget(rule, productId, variantId, product.categoryId) &&
                 usageAllowed(rule, userId)) {
-                double discount = rule.getPercentage() != null ? price * (rule.getPercentage() / 100.0) : 0.0;
+                long discount = rule.getPercentage() != null ? Money.percentOf(price, rule.getPercentage()) : 0;
                 price -= discount;
                 Map<String, Object> applied = new HashMap<>();
                 applied.put("rule_id", rule.getId());
                 applied.put("type", "SEASONAL");
-                applied.put("discount_amount", discount);
+                applied.put("discount_amount", Money.ofCents(discount));
                 result.appliedRules.add(applied);
             }
         }
@@ -81,15 +120,15 @@ public class PricingEngine {
         for (PricingRule rule : rules) {
             if ("BULK".equalsIgnoreCase(rule.getType()) && Boolean.TRUE.equals(rule.getActive()) &&
                 rule.getMinQuantity() != null && quantity >= rule.getMinQuantity() &&
-                matchesTarget(rule, productId, variantId, product.getCategoryId()) &&
+                matchesTarget(rule, productId, variantId, product.categoryId) &&
                 usageAllowed(rule, userId)) {
-                double discount = rule.getPercentage() != null ? price * (rule.getPercentage() / 100.0) : 0.0;
-                if (rule.getFlatAmount() != null) discount += rule.getFlatAmount();
+                long discount = rule.getPercentage() != null ? Money.percentOf(price, rule.getPercentage()) : 0;
+                if (rule.getFlatAmount() != null) discount += rule.getFlatAmount().cents();
                 price -= discount;
                 Map<String, Object> applied = new HashMap<>();
                 applied.put("rule_id", rule.getId());
                 applied.put("type", "BULK");
-                applied.put("discount_amount", discount);
+                applied.put("discount_amount", Money.ofCents(discount));
                 result.appliedRules.add(applied);
             }
         }
@@ -97,15 +136,15 @@ public class PricingEngine {
         for (PricingRule rule : rules) {
             if ("USER_TIER".equalsIgnoreCase(rule.getType()) && Boolean.TRUE.equals(rule.getActive()) &&
                 rule.getUserTier() != null && rule.getUserTier().equalsIgnoreCase(userTier) &&
-                matchesTarget(rule, productId, variantId, product.getCategoryId()) &&
+                matchesTarget(rule, productId, variantId, product.categoryId) &&
                 usageAllowed(rule, userId)) {
-                double discount = rule.getPercentage() != null ? price * (rule.getPercentage() / 100.0) : 0.0;
-                if (rule.getFlatAmount() != null) discount += rule.getFlatAmount();
+                long discount = rule.getPercentage() != null ? Money.percentOf(price, rule.getPercentage()) : 0;
+                if (rule.getFlatAmount() != null) discount += rule.getFlatAmount().cents();
                 price -= discount;
                 Map<String, Object> applied = new HashMap<>();
                 applied.put("rule_id", rule.getId());
                 applied.put("type", "USER_TIER");
-                applied.put("discount_amount", discount);
+                applied.put("discount_amount", Money.ofCents(discount));
                 result.appliedRules.add(applied);
             }
         }
@@ -113,21 +152,21 @@ public class PricingEngine {
         for (PricingRule rule : rules) {
             if ("PROMO".equalsIgnoreCase(rule.getType()) && Boolean.TRUE.equals(rule.getActive()) &&
                 rule.getPromoCode() != null && promoCode != null && rule.getPromoCode().equalsIgnoreCase(promoCode) &&
-                matchesTarget(rule, productId, variantId, product.getCategoryId()) &&
+                matchesTarget(rule, productId, variantId, product.categoryId) &&
                 usageAllowed(rule, userId)) {
-                double discount = rule.getPercentage() != null ? price * (rule.getPercentage() / 100.0) : 0.0;
-                if (rule.getFlatAmount() != null) discount += rule.getFlatAmount();
+                long discount = rule.getPercentage() != null ? Money.percentOf(price, rule.getPercentage()) : 0;
+                if (rule.getFlatAmount() != null) discount += rule.getFlatAmount().cents();
                 price -= discount;
                 Map<String, Object> applied = new HashMap<>();
                 applied.put("rule_id", rule.getId());
                 applied.put("type", "PROMO_CODE");
-                applied.put("discount_amount", discount);
+                applied.put("discount_amount", Money.ofCents(discount));
                 result.appliedRules.add(applied);
             }
         }
         // 3. Calculate finalUnitPrice and totalPrice
-        result.finalUnitPrice = Math.max(price, 0.0); // never negative
-        result.totalPrice = result.finalUnitPrice * quantity;
+        result.finalUnitPrice = Money.ofCents(Math.max(price, 0)); // never negative
+        result.totalPrice = result.finalUnitPrice.times(quantity);
         return result;
     }
 
@@ -138,6 +177,11 @@ public class PricingEngine {
         return false;
     }
 
+    private boolean withinThresholds(PricingRule rule, long level) {
+        return (rule.getThresholdMin() == null || level >= rule.getThresholdMin()) &&
+            (rule.getThresholdMax() == null || level < rule.getThresholdMax());
+    }
+
     private boolean usageAllowed(PricingRule rule, Long userId) {
         // Enforce total usage limit
         if (rule.getUsageLimit() != null) {
@@ -0,0 +1,154 @@
+package com.example.ecommerce.service;
+
+import com.example.ecommerce.entity.Product;
+import com.example.ecommerce.entity.Variant;
+import com.example.ecommerce.repository.ProductRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Products with their variants, one query per miss. Stock and reserved quantities change on every reservation, so
+ * they are not taken from the cached entry: each read overlays them from {@link AvailabilitySnapshot}, which every
+ * quantity change already updates. Only catalog changes (product or variant fields, new variants) evict.
+ */
+@Service
+public class ProductDetailCache {
+    private static final Logger logger = LoggerFactory.getLogger(ProductDetailCache.class);
+    static final String INVALIDATION_CHANNEL = "cache:product-detail:invalidate";
+
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private AvailabilitySnapshot availabilitySnapshot;
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+    @Autowired
+    private RedisMessageListenerContainer listenerContainer;
+
+    @Value("${product.detail-cache.max-size:10000}")
+    private long maxSize;
+    @Value("${product.detail-cache.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    private Cache<Long, Product> cache;
+
+    @PostConstruct
+    void init() {
+        cache = Caffeine.newBuilder()
+            .maximumSize(maxSize)
+            .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+            .build();
+        listenerContainer.addMessageListener((message, pattern) -> {
+            try {
+                cache.invalidate(Long.valueOf(new String(message.getBody())));
+            } catch (NumberFormatException e) {
+                logger.warn("Ignoring malformed product detail invalidation: {}", e.getMessage());
+            }
+        }, new ChannelTopic(INVALIDATION_CHANNEL));
+    }
+
+    /**
+     * Returns the product with its variants and their availability, loading it with a single query on a miss.
+     * The result is a copy carrying the latest stock, reserved quantity and version of each variant.
+     * @param productId Product ID
+     * @return The product detail, or empty if the product does not exist
+     */
+    public Optional<Product> get(Long productId) {
+        return Optional.ofNullable(cache.get(productId, this::load)).map(this::withCurrentQuantities);
+    }
+
+    /**
+     * Evicts the product detail on this node and all other nodes. When called inside a transaction the
+     * eviction runs after commit, so a concurrent reader cannot re-cache the pre-commit state. Not needed for
+     * stock or reservation changes that are published to {@link AvailabilitySnapshot}.
+     * @param productId Product ID whose product or variant fields changed
+     */
+    public void evict(Long productId) {
+        if (productId == null) return;
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evictNow(productId);
+                }
+            });
+        } else {
+            evictNow(productId);
+        }
+    }
+
+    private void evictNow(Long productId) {
+        cache.invalidate(productId);
+        try {
+            redisTemplate.convertAndSend(INVALIDATION_CHANNEL, productId.toString());
+        } catch (Exception e) {
+            logger.warn("Failed to broadcast product detail invalidation for {}: {}", productId, e.getMessage());
+        }
+    }
+
+    private Product load(Long productId) {
+        List<Object[]> rows = productRepository.findWithVariantsById(productId);
+        if (rows.isEmpty()) return null;
+        Product product = (Product) rows.get(0)[0];
+        List<Variant> variants = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            if (row[1] != null) {
+                variants.add((Variant) row[1]);
+            }
+        }
+        product.setVariants(variants);
+        return product;
+    }
+
+    // The cached entry is shared between requests, so the overlay goes on a copy
+    private Product withCurrentQuantities(Product cached) {
+        Product product = new Product();
+        product.setId(cached.getId());
+        product.setName(cached.getName());
+        product.setSlug(cached.getSlug());
+        product.setDescription(cached.getDescription());
+        product.setBasePrice(cached.getBasePrice());
+        product.setStatus(cached.getStatus());
+        product.setCategoryId(cached.getCategoryId());
+        product.setVersion(cached.getVersion());
+        product.setUpdatedAt(cached.getUpdatedAt());
+        List<Variant> variants = new ArrayList<>(cached.getVariants().size());
+        for (Variant v : cached.getVariants()) {
+            Variant variant = new Variant();
+            variant.setId(v.getId());
+            variant.setSku(v.getSku());
+            variant.setTitle(v.getTitle());
+            variant.setPriceAdjustment(v.getPriceAdjustment());
+            variant.setProductId(v.getProductId());
+            variant.setUpdatedAt(v.getUpdatedAt());
+            AvailabilitySnapshot.Availability current = availabilitySnapshot.peek(v.getId());
+            if (current != null && v.getVersion() != null && current.version >= v.getVersion()) {
+                variant.setStockQuantity(current.stockQuantity);
+                variant.setReservedQuantity(current.reservedQuantity);
+                variant.setVersion(current.version);
+            } else {
+                variant.setStockQuantity(v.getStockQuantity());
+                variant.setReservedQuantity(v.getReservedQuantity());
+                variant.setVersion(v.getVersion());
+            }
+            variants.add(variant);
+        }
+        product.setVariants(variants);
+        return product;
+    }
+}
@@ -0,0 +1,526 @@
+package com.example.ecommerce.service;
+
+import com.example.ecommerce.config.ReplicaRoutingDataSource;
+import com.example.ecommerce.entity.Product;
+import com.example.ecommerce.repository.ProductRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory inverted index over product name, slug and description, with a prefix trie of name/slug terms
+ * for autocomplete. Archived products are not indexed.
+ *
+ * Every node holds its own copy. Changes are applied locally after commit and the product ids broadcast over
+ * Redis; the other nodes reload those products from the primary and re-index or remove them.
+ */
+@Service
+public class ProductSearchIndex {
+    private static final Logger logger = LoggerFactory.getLogger(ProductSearchIndex.class);
+
+    private static final float NAME_WEIGHT = 3.0f;
+    private static final float SLUG_WEIGHT = 2.0f;
+    private static final float DESCRIPTION_WEIGHT = 1.0f;
+    private static final int BUILD_BATCH_SIZE = 5000;
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int MAX_RESULT_WINDOW = 10000;
+    private static final int MIN_DEAD_DOCS_FOR_COMPACTION = 10000;
+    static final String CHANGE_CHANNEL = "search:products:changed";
+
+    // Lets a node skip its own broadcasts: it already applied the change
+    private final String nodeId = UUID.randomUUID().toString();
+
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+    @Autowired
+    private RedisMessageListenerContainer listenerContainer;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private Map<String, Postings> postingsByTerm = new HashMap<>();
+    private Map<Long, Integer> docByProductId = new HashMap<>();
+    private Doc[] docs = new Doc[1024];
+    private int nextDoc;
+    private int liveDocs;
+    private TrieNode trieRoot = new TrieNode();
+    // Ids changed on other nodes while the index is being built, reloaded once it is; null after that
+    private Set<Long> changedDuringBuild = new HashSet<>();
+    private final Object buildMonitor = new Object();
+
+    public static class Hit {
+        public Long id;
+        public String name;
+        public String slug;
+        public double score;
+    }
+
+    public static class SearchResult {
+        public long total;
+        public int page;
+        public int size;
+        public List<Hit> hits = new ArrayList<>();
+    }
+
+    private static final class Doc {
+        final long productId;
+        final String name;
+        final String slug;
+        final String[] terms;
+        final float[] weights;
+        final boolean[] suggestable;
+
+        Doc(long productId, String name, String slug, String[] terms, float[] weights, boolean[] suggestable) {
+            this.productId = productId;
+            this.name = name;
+            this.slug = slug;
+            this.terms = terms;
+            this.weights = weights;
+            this.suggestable = suggestable;
+        }
+    }
+
+    // Doc ids are handed out in increasing order, so every postings list stays sorted without re-sorting.
+    private static final class Postings {
+        int[] docs = new int[4];
+        float[] weights = new float[4];
+        int size;
+        int live;
+        boolean inTrie;
+
+        void add(int doc, float weight) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                weights = Arrays.copyOf(weights, size * 2);
+            }
+            docs[size] = doc;
+            weights[size] = weight;
+            size++;
+            live++;
+        }
+    }
+
+    private static final class TrieNode {
+        Map<Character, TrieNode> children;
+        String term;
+        // Upper bound on the document frequency of any term below this node; may be stale-high after removals.
+        int maxDf;
+    }
+
+    // Subscribes before reading, so no change made during the build is missed. The shared container would only
+    // subscribe once the context has started, so it is started here. The batches are read from the primary: a
+    // change broadcast just before subscribing may not have reached a replica yet.
+    @PostConstruct
+    void build() {
+        listenerContainer.addMessageListener((message, pattern) -> onMessage(new String(message.getBody())),
+            new ChannelTopic(CHANGE_CHANNEL));
+        if (!listenerContainer.isRunning()) listenerContainer.start();
+        long start = System.currentTimeMillis();
+        long lastId = 0L;
+        List<Product> batch;
+        do {
+            long after = lastId;
+            batch = ReplicaRoutingDataSource.onPrimary(() ->
+                productRepository.findByIdGreaterThanOrderByIdAsc(after, PageRequest.of(0, BUILD_BATCH_SIZE)));
+            lock.writeLock().lock();
+            try {
+                for (Product p : batch) {
+                    if (isSearchable(p)) addInternal(p);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+            if (!batch.isEmpty()) lastId = batch.get(batch.size() - 1).getId();
+        } while (batch.size() == BUILD_BATCH_SIZE);
+        // Reloading can take long enough for more changes to arrive, so drain until nothing is left
+        while (true) {
+            Set<Long> ids;
+            synchronized (buildMonitor) {
+                ids = changedDuringBuild;
+                if (ids.isEmpty()) {
+                    changedDuringBuild = null;
+                    break;
+                }
+                changedDuringBuild = new HashSet<>();
+            }
+            reload(ids);
+        }
+        logger.info("Product search index built: {} products, {} terms in {} ms",
+            liveDocs, postingsByTerm.size(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Adds or replaces a product in the index on every node once the current transaction (if any) commits.
+     * Archived products are removed instead.
+     * @param product The saved product
+     */
+    public void index(Product product) {
+        if (product == null || product.getId() == null) return;
+        indexAll(List.of(product));
+    }
+
+    /**
+     * Batch form of {@link #index(Product)}: one broadcast for all of them.
+     * @param products Saved products
+     */
+    public void indexAll(Collection<Product> products) {
+        List<Product> saved = products.stream().filter(p -> p != null && p.getId() != null).toList();
+        if (saved.isEmpty()) return;
+        afterCommit(() -> {
+            applyLocal(saved, List.of());
+            broadcast(saved.stream().map(Product::getId).toList());
+        });
+    }
+
+    /**
+     * Removes a product from the index on every node once the current transaction (if any) commits.
+     * @param productId Product ID
+     */
+    public void remove(Long productId) {
+        if (productId == null) return;
+        afterCommit(() -> {
+            applyLocal(List.of(), List.of(productId));
+            broadcast(List.of(productId));
+        });
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private void applyLocal(Collection<Product> products, Collection<Long> removedIds) {
+        lock.writeLock().lock();
+        try {
+            for (Long id : removedIds) {
+                removeInternal(id);
+            }
+            for (Product product : products) {
+                removeInternal(product.getId());
+                if (isSearchable(product)) addInternal(product);
+            }
+            maybeCompact();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void broadcast(Collection<Long> productIds) {
+        String message = nodeId + "|" + productIds.stream().map(String::valueOf).collect(Collectors.joining(","));
+        try {
+            redisTemplate.convertAndSend(CHANGE_CHANNEL, message);
+        } catch (Exception e) {
+            logger.warn("Failed to broadcast search index change for {} products: {}", productIds.size(), e.getMessage());
+        }
+    }
+
+    // The message only names the products; their current state is read from the primary, so order does not matter
+    private void onMessage(String message) {
+        String[] parts = message.split("\\|", 2);
+        if (parts.length != 2) {
+            logger.warn("Ignoring malformed search index change {}", message);
+            return;
+        }
+        if (nodeId.equals(parts[0]) || parts[1].isEmpty()) return;
+        try {
+            Set<Long> ids = Arrays.stream(parts[1].split(",")).map(Long::valueOf).collect(Collectors.toSet());
+            synchronized (buildMonitor) {
+                if (changedDuringBuild != null) {
+                    changedDuringBuild.addAll(ids);
+                    return;
+                }
+            }
+            reload(ids);
+        } catch (RuntimeException e) {
+            logger.warn("Failed to apply search index change {}: {}", message, e.getMessage());
+        }
+    }
+
+    private void reload(Set<Long> ids) {
+        List<Product> products = ReplicaRoutingDataSource.onPrimary(() -> productRepository.findAllById(ids));
+        Set<Long> removed = new LinkedHashSet<>(ids);
+        for (Product p : products) {
+            removed.remove(p.getId());
+        }
+        applyLocal(products, removed);
+    }
+
+    /**
+     * Finds products containing every term of the query, ranked by field-weighted tf-idf.
+     * @param query Free-text query
+     * @param page Zero-based page number
+     * @param size Page size (capped at 100)
+     * @return SearchResult with the total match count and the requested page of hits
+     */
+    public SearchResult search(String query, int page, int size) {
+        SearchResult result = new SearchResult();
+        result.page = Math.max(page, 0);
+        result.size = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        Set<String> terms = new LinkedHashSet<>(tokenize(query));
+        if (terms.isEmpty()) return result;
+        long offset = (long) result.page * result.size;
+        int window = (int) Math.min(offset + result.size, MAX_RESULT_WINDOW);
+
+        lock.readLock().lock();
+        try {
+            Postings[] lists = new Postings[terms.size()];
+            int n = 0;
+            for (String term : terms) {
+                Postings p = postingsByTerm.get(term);
+                if (p == null || p.live == 0) return result;
+                lists[n++] = p;
+            }
+            // Drive the intersection from the rarest term.
+            Arrays.sort(lists, Comparator.comparingInt(p -> p.live));
+            double[] idf = new double[lists.length];
+            for (int i = 0; i < lists.length; i++) {
+                idf[i] = Math.log(1.0 + (double) liveDocs / lists[i].live);
+            }
+            int[] cursors = new int[lists.length];
+            PriorityQueue<double[]> top = new PriorityQueue<>(window + 1,
+                (a, b) -> a[0] != b[0] ? Double.compare(a[0], b[0]) : Double.compare(b[1], a[1]));
+            Postings lead = lists[0];
+            outer:
+            for (int i = 0; i < lead.size; i++) {
+                int doc = lead.docs[i];
+                if (docs[doc] == null) continue;
+                double score = lead.weights[i] * idf[0];
+                for (int j = 1; j < lists.length; j++) {
+                    Postings other = lists[j];
+                    int idx = gallop(other, cursors[j], doc);
+                    if (idx < 0) {
+                        cursors[j] = -idx - 1;
+                        if (cursors[j] >= other.size) break outer;
+                        continue outer;
+                    }
+                    cursors[j] = idx;
+                    score += other.weights[idx] * idf[j];
+                }
+                result.total++;
+                if (top.size() < window) {
+                    top.offer(new double[] { score, doc });
+                } else if (window > 0 && score > top.peek()[0]) {
+                    top.poll();
+                    top.offer(new double[] { score, doc });
+                }
+            }
+            double[][] ranked = top.toArray(new double[0][]);
+            Arrays.sort(ranked, (a, b) -> a[0] != b[0] ? Double.compare(b[0], a[0]) : Double.compare(a[1], b[1]));
+            for (long i = offset; i < ranked.length; i++) {
+                Doc d = docs[(int) ranked[(int) i][1]];
+                Hit hit = new Hit();
+                hit.id = d.productId;
+                hit.name = d.name;
+                hit.slug = d.slug;
+                hit.score = ranked[(int) i][0];
+                result.hits.add(hit);
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Completes a prefix to the most frequent name/slug terms.
+     * @param prefix Prefix typed so far; only its last token is completed
+     * @param limit Maximum number of suggestions
+     * @return Terms ordered by the number of products containing them
+     */
+    public List<String> suggest(String prefix, int limit) {
+        List<String> suggestions = new ArrayList<>();
+        List<String> tokens = tokenize(prefix);
+        if (tokens.isEmpty() || limit <= 0) return suggestions;
+        String last = tokens.get(tokens.size() - 1);
+        lock.readLock().lock();
+        try {
+            TrieNode node = trieRoot;
+            for (int i = 0; i < last.length() && node != null; i++) {
+                node = node.children == null ? null : node.children.get(last.charAt(i));
+            }
+            if (node == null) return suggestions;
+            // Best-first walk: subtrees are ordered by their df upper bound, terms by their exact df.
+            PriorityQueue<Object[]> queue = new PriorityQueue<>((a, b) -> Integer.compare((int) b[0], (int) a[0]));
+            queue.offer(new Object[] { node.maxDf, node });
+            while (!queue.isEmpty() && suggestions.size() < limit) {
+                Object[] entry = queue.poll();
+                if (entry[1] instanceof String term) {
+                    suggestions.add(term);
+                    continue;
+                }
+                TrieNode current = (TrieNode) entry[1];
+                if (current.term != null) {
+                    Postings p = postingsByTerm.get(current.term);
+                    if (p != null && p.live > 0) queue.offer(new Object[] { p.live, current.term });
+                }
+                if (current.children != null) {
+                    for (TrieNode child : current.children.values()) {
+                        queue.offer(new Object[] { child.maxDf, child });
+                    }
+                }
+            }
+            return suggestions;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Exponential then binary search from the cursor; cheap when consecutive targets are close together.
+    private static int gallop(Postings p, int from, int target) {
+        int step = 1;
+        int hi = from;
+        while (hi < p.size && p.docs[hi] < target) {
+            from = hi + 1;
+            hi += step;
+            step <<= 1;
+        }
+        return Arrays.binarySearch(p.docs, from, Math.min(hi + 1, p.size), target);
+    }
+
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) return tokens;
+        String lower = text.toLowerCase(Locale.ROOT);
+        int start = -1;
+        for (int i = 0; i <= lower.length(); i++) {
+            boolean word = i < lower.length() && Character.isLetterOrDigit(lower.charAt(i));
+            if (word && start < 0) {
+                start = i;
+            } else if (!word && start >= 0) {
+                tokens.add(lower.substring(start, i));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    private boolean isSearchable(Product product) {
+        return !"ARCHIVED".equalsIgnoreCase(product.getStatus());
+    }
+
+    private void addInternal(Product product) {
+        Map<String, float[]> fields = new LinkedHashMap<>();
+        accumulate(fields, product.getName(), NAME_WEIGHT, true);
+        accumulate(fields, product.getSlug(), SLUG_WEIGHT, true);
+        accumulate(fields, product.getDescription(), DESCRIPTION_WEIGHT, false);
+        String[] terms = new String[fields.size()];
+        float[] weights = new float[fields.size()];
+        boolean[] suggestable = new boolean[fields.size()];
+        int i = 0;
+        for (Map.Entry<String, float[]> e : fields.entrySet()) {
+            terms[i] = e.getKey();
+            weights[i] = e.getValue()[0];
+            suggestable[i] = e.getValue()[1] > 0;
+            i++;
+        }
+        addDoc(new Doc(product.getId(), product.getName(), product.getSlug(), terms, weights, suggestable));
+    }
+
+    private void addDoc(Doc doc) {
+        int docId = nextDoc++;
+        if (docId == docs.length) docs = Arrays.copyOf(docs, docs.length * 2);
+        docs[docId] = doc;
+        docByProductId.put(doc.productId, docId);
+        liveDocs++;
+        for (int i = 0; i < doc.terms.length; i++) {
+            Postings p = postingsByTerm.computeIfAbsent(doc.terms[i], k -> {
+                Postings created = new Postings();
+                created.inTrie = trieContains(k);
+                return created;
+            });
+            p.add(docId, doc.weights[i]);
+            if (doc.suggestable[i]) p.inTrie = true;
+            if (p.inTrie) trieUpdate(doc.terms[i], p.live);
+        }
+    }
+
+    private static void accumulate(Map<String, float[]> fields, String text, float weight, boolean suggestable) {
+        for (String token : tokenize(text)) {
+            float[] entry = fields.computeIfAbsent(token, k -> new float[2]);
+            entry[0] += weight;
+            if (suggestable) entry[1] = 1;
+        }
+    }
+
+    private void removeInternal(Long productId) {
+        Integer docId = docByProductId.remove(productId);
+        if (docId == null) return;
+        Doc doc = docs[docId];
+        docs[docId] = null;
+        liveDocs--;
+        for (String term : doc.terms) {
+            Postings p = postingsByTerm.get(term);
+            if (p != null && --p.live == 0) {
+                postingsByTerm.remove(term);
+            }
+        }
+    }
+
+    private boolean trieContains(String term) {
+        TrieNode node = trieRoot;
+        for (int i = 0; i < term.length() && node != null; i++) {
+            node = node.children == null ? null : node.children.get(term.charAt(i));
+        }
+        return node != null && term.equals(node.term);
+    }
+
+    private void trieUpdate(String term, int df) {
+        TrieNode node = trieRoot;
+        node.maxDf = Math.max(node.maxDf, df);
+        for (int i = 0; i < term.length(); i++) {
+            if (node.children == null) node.children = new HashMap<>(4);
+            node = node.children.computeIfAbsent(term.charAt(i), c -> new TrieNode());
+            node.maxDf = Math.max(node.maxDf, df);
+        }
+        node.term = term;
+    }
+
+    // Removed docs stay in postings until enough accumulate; then everything is rebuilt from the live docs.
+    private void maybeCompact() {
+        int dead = nextDoc - liveDocs;
+        if (dead < MIN_DEAD_DOCS_FOR_COMPACTION || dead < liveDocs) return;
+        Doc[] old = docs;
+        int oldCount = nextDoc;
+        postingsByTerm = new HashMap<>();
+        docByProductId = new HashMap<>();
+        docs = new Doc[Math.max(1024, liveDocs * 2)];
+        nextDoc = 0;
+        liveDocs = 0;
+        trieRoot = new TrieNode();
+        for (int i = 0; i < oldCount; i++) {
+            if (old[i] != null) addDoc(old[i]);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.ecommerce.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Service;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Token buckets shared by all nodes through Redis. A node takes a small lease of tokens per Redis round trip
+ * and spends it locally, and it remembers an empty bucket until the refill, so most decisions need no network
+ * call. If Redis is unreachable the node falls back to a local bucket with the same limits.
+ */
+@Service
+public class RateLimiter {
+    private static final Logger logger = LoggerFactory.getLogger(RateLimiter.class);
+    // Unused leased tokens are dropped after this, so an idle node cannot hoard a user's budget
+    private static final long LEASE_TTL_NANOS = Duration.ofSeconds(1).toNanos();
+
+    // KEYS[1] bucket; ARGV capacity, tokens per second, tokens wanted. Returns {granted, retry-after ms}.
+    private static final DefaultRedisScript<List> TAKE_SCRIPT = new DefaultRedisScript<>(
+        "local capacity = tonumber(ARGV[1]) "
+        + "local rate = tonumber(ARGV[2]) "
+        + "local wanted = tonumber(ARGV[3]) "
+        + "local t = redis.call('TIME') "
+        + "local now = tonumber(t[1]) * 1000 + math.floor(tonumber(t[2]) / 1000) "
+        + "local state = redis.call('HMGET', KEYS[1], 'tokens', 'ts') "
+        + "local tokens = tonumber(state[1]) or capacity "
+        + "local ts = tonumber(state[2]) or now "
+        + "tokens = math.min(capacity, tokens + math.max(0, now - ts) * rate / 1000) "
+        + "local granted = math.min(wanted, math.floor(tokens)) "
+        + "tokens = tokens - granted "
+        + "redis.call('HSET', KEYS[1], 'tokens', tostring(tokens), 'ts', now) "
+        + "redis.call('PEXPIRE', KEYS[1], math.ceil(capacity * 1000 / rate) + 1000) "
+        + "local retry = 0 "
+        + "if granted == 0 then retry = math.ceil((1 - tokens) * 1000 / rate) end "
+        + "return {granted, retry}",
+        List.class);
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    private final Cache<String, LocalBucket> buckets = Caffeine.newBuilder()
+        .maximumSize(200_000)
+        .expireAfterAccess(Duration.ofMinutes(10))
+        .build();
+
+    public static class Decision {
+        public final boolean allowed;
+        public final long retryAfterMillis;
+
+        Decision(boolean allowed, long retryAfterMillis) {
+            this.allowed = allowed;
+            this.retryAfterMillis = retryAfterMillis;
+        }
+    }
+
+    private static final Decision ALLOWED = new Decision(true, 0);
+
+    private static final class LocalBucket {
+        long leased;
+        long leasedAt;
+        long emptyUntil;
+        // Only used while Redis is unavailable
+        double tokens;
+        long refilledAt;
+
+        LocalBucket(int capacity, long now) {
+            this.tokens = capacity;
+            this.refilledAt = now;
+        }
+    }
+
+    /**
+     * Takes one token from the bucket for key.
+     * @param key Bucket key, e.g. rule name and user
+     * @param capacity Burst size
+     * @param perSecond Refill rate
+     */
+    public Decision tryAcquire(String key, int capacity, double perSecond) {
+        long now = System.nanoTime();
+        LocalBucket bucket = buckets.get(key, k -> new LocalBucket(capacity, now));
+        synchronized (bucket) {
+            if (bucket.leased > 0 && now - bucket.leasedAt < LEASE_TTL_NANOS) {
+                bucket.leased--;
+                return ALLOWED;
+            }
+            if (now < bucket.emptyUntil) {
+                return new Decision(false, Math.max(1, (bucket.emptyUntil - now) / 1_000_000));
+            }
+            long lease = Math.max(1, capacity / 5);
+            List<?> result;
+            try {
+                result = redisTemplate.execute(TAKE_SCRIPT, Collections.singletonList("ratelimit:" + key),
+                    String.valueOf(capacity), String.valueOf(perSecond), String.valueOf(lease));
+            } catch (Exception e) {
+                logger.debug("Rate limit store unavailable, using local bucket for {}: {}", key, e.getMessage());
+                return takeLocal(bucket, capacity, perSecond, now);
+            }
+            long granted = ((Number) result.get(0)).longValue();
+            if (granted > 0) {
+                bucket.leased = granted - 1;
+                bucket.leasedAt = now;
+                return ALLOWED;
+            }
+            long retryMillis = Math.max(1, ((Number) result.get(1)).longValue());
+            bucket.emptyUntil = now + retryMillis * 1_000_000;
+            return new Decision(false, retryMillis);
+        }
+    }
+
+    private Decision takeLocal(LocalBucket bucket, int capacity, double perSecond, long now) {
+        bucket.tokens = Math.min(capacity, bucket.tokens + (now - bucket.refilledAt) / 1e9 * perSecond);
+        bucket.refilledAt = now;
+        if (bucket.tokens >= 1) {
+            bucket.tokens -= 1;
+            return ALLOWED;
+        }
+        return new Decision(false, (long) Math.ceil((1 - bucket.tokens) * 1000 / perSecond));
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.ecommerce.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Reservation lifecycle events (created, resized, released, checked out, expired), written one line each as
+ * key=value pairs to the "reservation-events" logger by a background thread. Callers only claim a slot in a
+ * bounded lock-free ring buffer and never wait: when the buffer is full the event is dropped and counted in
+ * reservation.events.dropped. Events raised inside a transaction are published after it commits.
+ */
+@Service
+public class ReservationEventLog {
+    private static final Logger logger = LoggerFactory.getLogger(ReservationEventLog.class);
+    private static final Logger eventLogger = LoggerFactory.getLogger("reservation-events");
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    public enum Type { CREATED, RESIZED, RELEASED, CHECKED_OUT, EXPIRED }
+
+    private static final class Event {
+        final Type type;
+        final long reservationId;
+        final long variantId;
+        final int quantity;
+        final long at;
+
+        Event(Type type, long reservationId, long variantId, int quantity) {
+            this.type = type;
+            this.reservationId = reservationId;
+            this.variantId = variantId;
+            this.quantity = quantity;
+            this.at = System.currentTimeMillis();
+        }
+    }
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Value("${reservation-events.buffer-size:65536}")
+    private int bufferSize;
+
+    private AtomicReferenceArray<Event> slots;
+    private int mask;
+    // Next sequence to claim (producers) and next sequence to write (writer thread)
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private Counter droppedCounter;
+    private volatile boolean running = true;
+    private Thread writer;
+
+    @PostConstruct
+    void start() {
+        int capacity = Integer.highestOneBit(Math.max(2, bufferSize - 1)) << 1;
+        slots = new AtomicReferenceArray<>(capacity);
+        mask = capacity - 1;
+        droppedCounter = Counter.builder("reservation.events.dropped")
+            .description("Reservation events dropped because the buffer was full").register(meterRegistry);
+        Gauge.builder("reservation.events.pending", this, log -> log.tail.get() - log.head.get())
+            .description("Reservation events waiting to be written").register(meterRegistry);
+        writer = new Thread(this::drain, "reservation-event-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        writer.join(TimeUnit.SECONDS.toMillis(5));
+    }
+
+    /**
+     * Records an event once the current transaction (if any) commits.
+     */
+    public void record(Type type, Long reservationId, Long variantId, int quantity) {
+        Event event = new Event(type, reservationId, variantId, quantity);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    offer(event);
+                }
+            });
+        } else {
+            offer(event);
+        }
+    }
+
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    private void offer(Event event) {
+        long sequence;
+        do {
+            sequence = tail.get();
+            if (sequence - head.get() > mask) {
+                dropped.incrementAndGet();
+                droppedCounter.increment();
+                return;
+            }
+        } while (!tail.compareAndSet(sequence, sequence + 1));
+        slots.set((int) (sequence & mask), event);
+    }
+
+    private void drain() {
+        long reportedDrops = 0;
+        StringBuilder line = new StringBuilder(96);
+        while (true) {
+            long sequence = head.get();
+            int index = (int) (sequence & mask);
+            Event event = slots.get(index);
+            if (event == null) {
+                // Empty, or a producer has claimed the slot but not filled it yet
+                if (!running && sequence == tail.get()) break;
+                long drops = dropped.get();
+                if (drops != reportedDrops) {
+                    logger.warn("Dropped {} reservation events because the buffer was full", drops - reportedDrops);
+                    reportedDrops = drops;
+                }
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+                continue;
+            }
+            slots.set(index, null);
+            head.lazySet(sequence + 1);
+            line.setLength(0);
+            line.append("event=").append(event.type)
+                .append(" reservation=").append(event.reservationId)
+                .append(" variant=").append(event.variantId)
+                .append(" qty=").append(event.quantity)
+                .append(" at=").append(event.at);
+            eventLogger.info(line.toString());
+        }
+    }
+}
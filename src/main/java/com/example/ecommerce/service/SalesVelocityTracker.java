@@ -0,0 +1,196 @@
+package com.example.ecommerce.service;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Units sold per variant over sliding 5-minute and 1-hour windows, kept in memory from committed checkouts and
+ * shared with other nodes over Redis. Each window is a ring of 60 buckets with a running total, so reading
+ * it is O(1) and needs no lock except once per bucket period when expired buckets are subtracted.
+ * Counts start from zero when a node starts, and variants without sales in the longest window are dropped.
+ *
+ * Sales for one variant arrive concurrently: from afterCommit on any request thread that checked out, and from
+ * the Redis listener for other nodes' checkouts. The variant row lock is released by then, so each window
+ * serializes its own writers.
+ */
+@Service
+public class SalesVelocityTracker {
+    private static final Logger logger = LoggerFactory.getLogger(SalesVelocityTracker.class);
+    static final String SALES_CHANNEL = "sales:checkout";
+    public static final int[] WINDOW_MINUTES = { 5, 60 };
+    private static final int BUCKETS = 60;
+
+    // Lets a node skip its own broadcasts: it already counted them
+    private final String nodeId = UUID.randomUUID().toString();
+    // Created, added to and evicted only inside compute calls, so an eviction cannot lose a concurrent sale
+    final Map<Long, Window[]> windowsByVariant = new ConcurrentHashMap<>();
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+    @Autowired
+    private RedisMessageListenerContainer listenerContainer;
+
+    static final class Window {
+        final long bucketMillis;
+        final long[] counts = new long[BUCKETS];
+        // Epoch (time / bucketMillis) of the newest bucket; total is the sum of counts
+        volatile long currentEpoch;
+        volatile long total;
+
+        Window(int minutes, long now) {
+            this.bucketMillis = minutes * 60_000L / BUCKETS;
+            this.currentEpoch = now / bucketMillis;
+        }
+
+        synchronized void add(long now, long quantity) {
+            advance(now);
+            counts[(int) (currentEpoch % BUCKETS)] += quantity;
+            total += quantity;
+        }
+
+        long sum(long now) {
+            if (now / bucketMillis > currentEpoch) {
+                synchronized (this) {
+                    advance(now);
+                }
+            }
+            return total;
+        }
+
+        private void advance(long now) {
+            long epoch = now / bucketMillis;
+            if (epoch <= currentEpoch) return;
+            long expired = Math.min(epoch - currentEpoch, BUCKETS);
+            long remaining = total;
+            for (long e = currentEpoch + 1; e <= currentEpoch + expired; e++) {
+                int index = (int) (e % BUCKETS);
+                remaining -= counts[index];
+                counts[index] = 0;
+            }
+            total = remaining;
+            currentEpoch = epoch;
+        }
+    }
+
+    /**
+     * Drops variants whose windows are all empty, so the map only holds variants that sold recently.
+     */
+    @Scheduled(fixedDelay = 60000)
+    public void evictIdle() {
+        evictIdle(System.currentTimeMillis());
+    }
+
+    void evictIdle(long now) {
+        for (Long variantId : windowsByVariant.keySet()) {
+            windowsByVariant.computeIfPresent(variantId, (id, windows) -> {
+                for (Window window : windows) {
+                    if (window.sum(now) != 0) return windows;
+                }
+                return null;
+            });
+        }
+    }
+
+    @PostConstruct
+    void init() {
+        listenerContainer.addMessageListener((message, pattern) -> onMessage(new String(message.getBody())),
+            new ChannelTopic(SALES_CHANNEL));
+    }
+
+    /**
+     * Counts units sold per variant once the current transaction (if any) commits, on every node.
+     */
+    public void recordSales(Map<Long, Integer> unitsByVariant) {
+        if (unitsByVariant.isEmpty()) return;
+        Map<Long, Integer> sales = new HashMap<>(unitsByVariant);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    addLocal(sales);
+                    broadcast(sales);
+                }
+            });
+        } else {
+            addLocal(sales);
+            broadcast(sales);
+        }
+    }
+
+    /**
+     * Units of the variant sold in the last windowMinutes.
+     * @return Units sold, or -1 if windowMinutes is not one of {@link #WINDOW_MINUTES}
+     */
+    public long unitsSold(Long variantId, int windowMinutes) {
+        int slot = slot(windowMinutes);
+        if (slot < 0) return -1;
+        Window[] windows = windowsByVariant.get(variantId);
+        return windows == null ? 0 : windows[slot].sum(System.currentTimeMillis());
+    }
+
+    private static int slot(int windowMinutes) {
+        for (int i = 0; i < WINDOW_MINUTES.length; i++) {
+            if (WINDOW_MINUTES[i] == windowMinutes) return i;
+        }
+        return -1;
+    }
+
+    private void addLocal(Map<Long, Integer> sales) {
+        addLocal(sales, System.currentTimeMillis());
+    }
+
+    void addLocal(Map<Long, Integer> sales, long now) {
+        for (Map.Entry<Long, Integer> e : sales.entrySet()) {
+            windowsByVariant.compute(e.getKey(), (id, windows) -> {
+                if (windows == null) {
+                    windows = new Window[WINDOW_MINUTES.length];
+                    for (int i = 0; i < windows.length; i++) windows[i] = new Window(WINDOW_MINUTES[i], now);
+                }
+                for (Window window : windows) {
+                    window.add(now, e.getValue());
+                }
+                return windows;
+            });
+        }
+    }
+
+    private void broadcast(Map<Long, Integer> sales) {
+        String message = nodeId + "|" + sales.entrySet().stream()
+            .map(e -> e.getKey() + ":" + e.getValue())
+            .collect(Collectors.joining(","));
+        try {
+            redisTemplate.convertAndSend(SALES_CHANNEL, message);
+        } catch (Exception e) {
+            logger.warn("Failed to broadcast sales for velocity tracking: {}", e.getMessage());
+        }
+    }
+
+    private void onMessage(String message) {
+        String[] parts = message.split("\\|", 2);
+        if (parts.length != 2 || nodeId.equals(parts[0])) return;
+        try {
+            Map<Long, Integer> sales = new HashMap<>();
+            for (String entry : parts[1].split(",")) {
+                String[] kv = entry.split(":");
+                sales.merge(Long.valueOf(kv[0]), Integer.valueOf(kv[1]), Integer::sum);
+            }
+            addLocal(sales);
+        } catch (RuntimeException e) {
+            logger.warn("Ignoring malformed sales message {}: {}", message, e.getMessage());
+        }
+    }
+}
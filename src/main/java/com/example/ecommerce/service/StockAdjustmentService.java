@@ -0,0 +1,168 @@
+package com.example.ecommerce.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import java.sql.Array;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Set-based stock corrections for warehouse sync. All adjustments in a request are applied by a single
+ * UPDATE keyed by SKU; rows whose new stock would fall below their reserved quantity are left untouched
+ * and reported back as conflicts.
+ */
+@Lazy
+@Service
+public class StockAdjustmentService {
+    private static final Logger logger = LoggerFactory.getLogger(StockAdjustmentService.class);
+    public static final int MAX_ITEMS = 50000;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private ProductDetailCache productDetailCache;
+    @Autowired
+    private AvailabilitySnapshot availabilitySnapshot;
+
+    public static class StockAdjustment {
+        public String sku;
+        // Exactly one of stockQuantity (absolute) or delta must be set
+        public Integer stockQuantity;
+        public Integer delta;
+    }
+
+    public static class StockConflict {
+        public String sku;
+        public int stockQuantity;
+        public int reservedQuantity;
+        public int requestedStockQuantity;
+    }
+
+    public static class StockAdjustmentResult {
+        public int updated;
+        public List<StockConflict> conflicts = new ArrayList<>();
+        public List<String> unknownSkus = new ArrayList<>();
+    }
+
+    /**
+     * Applies absolute and delta stock changes to many variants at once.
+     * @param adjustments One entry per SKU
+     * @return Number of variants updated, SKUs that would have dropped below their reservations, and unknown SKUs
+     * @throws IllegalArgumentException if the request is empty, too large, has duplicate SKUs or malformed entries
+     */
+    @Transactional
+    public StockAdjustmentResult adjust(List<StockAdjustment> adjustments) {
+        validate(adjustments);
+        int n = adjustments.size();
+        String[] skus = new String[n];
+        Integer[] absolute = new Integer[n];
+        Integer[] deltas = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            StockAdjustment a = adjustments.get(i);
+            skus[i] = a.sku;
+            absolute[i] = a.stockQuantity;
+            deltas[i] = a.delta;
+        }
+        StockAdjustmentResult result = new StockAdjustmentResult();
+        Set<String> updatedSkus = new HashSet<>();
+        Set<Long> touchedProducts = new HashSet<>();
+        jdbcTemplate.execute((ConnectionCallback<Void>) con -> {
+            Array skuArray = con.createArrayOf("varchar", skus);
+            // Lock the affected rows in id order first, matching how concurrent batches queue up, then update
+            // all of them in one statement. The reservation guard lives in the WHERE clause, so it is evaluated
+            // against the locked row.
+            try (PreparedStatement lock = con.prepareStatement(
+                    "SELECT id FROM variants WHERE sku = ANY(?) ORDER BY id FOR UPDATE")) {
+                lock.setArray(1, skuArray);
+                lock.executeQuery().close();
+            }
+            try (PreparedStatement ps = con.prepareStatement(
+                    "UPDATE variants v SET stock_quantity = COALESCE(i.absolute_qty, v.stock_quantity + i.delta), "
+                    + "version = v.version + 1, updated_at = NOW() "
+                    + "FROM unnest(?::varchar[], ?::int[], ?::int[]) AS i(sku, absolute_qty, delta) "
+                    + "WHERE v.sku = i.sku AND COALESCE(i.absolute_qty, v.stock_quantity + i.delta) >= v.reserved_quantity "
+                    + "RETURNING v.sku, v.product_id, v.id, v.stock_quantity, v.reserved_quantity, v.version")) {
+                ps.setArray(1, skuArray);
+                ps.setArray(2, con.createArrayOf("int4", absolute));
+                ps.setArray(3, con.createArrayOf("int4", deltas));
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        updatedSkus.add(rs.getString(1));
+                        touchedProducts.add(rs.getLong(2));
+                        availabilitySnapshot.update(rs.getLong(3), rs.getInt(4), rs.getInt(5), rs.getLong(6));
+                    }
+                }
+            }
+            if (updatedSkus.size() < n) {
+                Map<String, int[]> current = new HashMap<>();
+                try (PreparedStatement ps = con.prepareStatement(
+                        "SELECT sku, stock_quantity, reserved_quantity FROM variants WHERE sku = ANY(?)")) {
+                    ps.setArray(1, skuArray);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) {
+                            current.put(rs.getString(1), new int[] { rs.getInt(2), rs.getInt(3) });
+                        }
+                    }
+                }
+                for (StockAdjustment a : adjustments) {
+                    if (updatedSkus.contains(a.sku)) continue;
+                    int[] row = current.get(a.sku);
+                    if (row == null) {
+                        result.unknownSkus.add(a.sku);
+                        continue;
+                    }
+                    StockConflict c = new StockConflict();
+                    c.sku = a.sku;
+                    c.stockQuantity = row[0];
+                    c.reservedQuantity = row[1];
+                    c.requestedStockQuantity = a.stockQuantity != null ? a.stockQuantity : row[0] + a.delta;
+                    result.conflicts.add(c);
+                }
+            }
+            return null;
+        });
+        result.updated = updatedSkus.size();
+        for (Long productId : touchedProducts) {
+            productDetailCache.evict(productId);
+        }
+        logger.info("Stock adjustment applied: updated={}, conflicts={}, unknown={}",
+            result.updated, result.conflicts.size(), result.unknownSkus.size());
+        return result;
+    }
+
+    private void validate(List<StockAdjustment> adjustments) {
+        if (adjustments == null || adjustments.isEmpty()) {
+            throw new IllegalArgumentException("At least one stock adjustment is required");
+        }
+        if (adjustments.size() > MAX_ITEMS) {
+            throw new IllegalArgumentException("At most " + MAX_ITEMS + " stock adjustments per request");
+        }
+        Set<String> seen = new HashSet<>();
+        for (StockAdjustment a : adjustments) {
+            if (a == null || a.sku == null || a.sku.isBlank()) {
+                throw new IllegalArgumentException("sku is required");
+            }
+            if ((a.stockQuantity == null) == (a.delta == null)) {
+                throw new IllegalArgumentException("Exactly one of stockQuantity or delta is required for sku " + a.sku);
+            }
+            if (a.stockQuantity != null && a.stockQuantity < 0) {
+                throw new IllegalArgumentException("stockQuantity must not be negative for sku " + a.sku);
+            }
+            if (!seen.add(a.sku)) {
+                throw new IllegalArgumentException("Duplicate sku: " + a.sku);
+            }
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.ecommerce.service;
+
+import com.example.ecommerce.entity.User;
+import com.example.ecommerce.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import java.time.Duration;
+
+/**
+ * Caches findByEmail for login. Only existing users are cached, so a fresh registration is visible at once;
+ * the TTL bounds how long edits made directly in the database go unnoticed.
+ */
+@Service
+public class UserLookupCache {
+    @Autowired
+    private UserRepository userRepository;
+
+    @Value("${auth.user-cache.max-size:100000}")
+    private long maxSize;
+    @Value("${auth.user-cache.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    private Cache<String, User> users;
+
+    @PostConstruct
+    void init() {
+        users = Caffeine.newBuilder().maximumSize(maxSize).expireAfterWrite(Duration.ofSeconds(ttlSeconds)).build();
+    }
+
+    /**
+     * @return The user with this email, or null if there is none
+     */
+    public User findByEmail(String email) {
+        if (email == null) return null;
+        User cached = users.getIfPresent(email);
+        if (cached != null) return cached;
+        User found = userRepository.findByEmail(email);
+        if (found != null) users.put(email, found);
+        return found;
+    }
+
+    public void evict(String email) {
+        if (email != null) users.invalidate(email);
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.ecommerce.worker;
+
+import com.example.ecommerce.service.CartExpiryService;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Expires ACTIVE carts with no activity for cart-expiry.idle-minutes, one chunk (and transaction) at a time.
+ * Nodes do not coordinate: each chunk skips carts another node has already locked.
+ */
+@Component
+public class CartExpiryWorker {
+    private static final Logger logger = LoggerFactory.getLogger(CartExpiryWorker.class);
+    // Resolved on first use; not needed to serve regular traffic
+    @Autowired
+    private ObjectProvider<CartExpiryService> cartExpiryService;
+
+    @Value("${cart-expiry.idle-minutes:1440}")
+    private long idleMinutes;
+    @Value("${cart-expiry.chunk-size:500}")
+    private int chunkSize;
+    @Value("${cart-expiry.max-chunks-per-run:200}")
+    private int maxChunksPerRun;
+
+    // First run one interval after startup, so it stays out of the boot path
+    @Scheduled(fixedDelayString = "${cart-expiry.interval-ms:300000}", initialDelayString = "${cart-expiry.interval-ms:300000}")
+    public void expireIdleCarts() {
+        Instant cutoff = Instant.now().minus(Duration.ofMinutes(idleMinutes));
+        int carts = 0;
+        int reservations = 0;
+        try {
+            for (int chunk = 0; chunk < maxChunksPerRun; chunk++) {
+                CartExpiryService.ExpiryResult result = cartExpiryService.getObject().expireIdleCarts(cutoff, chunkSize);
+                carts += result.carts;
+                reservations += result.reservations;
+                if (result.carts < chunkSize) break;
+            }
+        } catch (Exception e) {
+            logger.error("Cart expiry worker failed: {}", e.getMessage());
+        }
+        if (carts > 0) {
+            logger.info("Expired {} idle carts and released {} reservations", carts, reservations);
+        }
+    }
+}
@@ -1,18 +1,22 @@
 package com.example.ecommerce.worker;
 
-import com.example.ecommerce.entity.Reservation;
-import com.example.ecommerce.entity.Variant;
-import com.example.ecommerce.repository.ReservationRepository;
-import com.example.ecommerce.repository.VariantRepository;
+import com.example.ecommerce.service.AvailabilitySnapshot;
+import com.example.ecommerce.service.ReservationEventLog;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
 import java.time.Instant;
-import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
 @Component
 public class ReservationExpiryWorker {
@@ -20,9 +24,11 @@ public class ReservationExpiryWorker {
     @Autowired
     private StringRedisTemplate redisTemplate;
     @Autowired
-    private ReservationRepository reservationRepository;
+    private JdbcTemplate jdbcTemplate;
     @Autowired
-    private VariantRepository variantRepository;
+    private AvailabilitySnapshot availabilitySnapshot;
+    @Autowired
+    private ReservationEventLog reservationEventLog;
 
     // Runs every minute
     @Scheduled(fixedRate = 60000)
@@ -35,22 +41,46 @@ public class ReservationExpiryWorker {
             return;
         }
         try {
-            // 1. Find all reservations where expiresAt < now AND released = false
-            List<Reservation> expired = reservationRepository.findExpiredUnreleased(Instant.now());
-            // 2. For each, release reserved quantity and mark as released
-            for (Reservation r : expired) {
-                try {
-                    Variant v = variantRepository.findWithLockingById(r.getVariantId())
-                        .orElseThrow(() -> new IllegalArgumentException("Variant not found: " + r.getVariantId()));
-                    v.setReservedQuantity(v.getReservedQuantity() - r.getQuantity());
-                    r.setReleased(true);
-                    variantRepository.save(v);
-                    reservationRepository.save(r);
-                    logger.info("Released reservation {} for variant {} (qty {})", r.getId(), r.getVariantId(), r.getQuantity());
-                } catch (Exception e) {
-                    logger.error("Error releasing reservation {}: {}", r.getId(), e.getMessage());
+            Timestamp now = Timestamp.from(Instant.now());
+            jdbcTemplate.execute((ConnectionCallback<Void>) con -> {
+                // Variants in id order, the order checkout and cart expiry lock them in
+                try (PreparedStatement lock = con.prepareStatement(
+                        "SELECT id FROM variants WHERE id IN (SELECT variant_id FROM reservations "
+                        + "WHERE expires_at < ? AND NOT released) ORDER BY id FOR UPDATE")) {
+                    lock.setTimestamp(1, now);
+                    lock.executeQuery().close();
+                }
+                // NOT released is re-checked per row under its lock, so a reservation a checkout or cart expiry
+                // released in the meantime is skipped rather than subtracted a second time
+                Map<Long, Integer> releasedByVariant = new TreeMap<>();
+                try (PreparedStatement ps = con.prepareStatement(
+                        "UPDATE reservations SET released = TRUE WHERE expires_at < ? AND NOT released "
+                        + "RETURNING id, variant_id, quantity")) {
+                    ps.setTimestamp(1, now);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) {
+                            releasedByVariant.merge(rs.getLong(2), rs.getInt(3), Integer::sum);
+                            reservationEventLog.record(ReservationEventLog.Type.EXPIRED, rs.getLong(1), rs.getLong(2), rs.getInt(3));
+                        }
+                    }
+                }
+                if (releasedByVariant.isEmpty()) return null;
+                try (PreparedStatement ps = con.prepareStatement(
+                        "UPDATE variants v SET reserved_quantity = v.reserved_quantity - d.qty, "
+                        + "version = v.version + 1, updated_at = NOW() "
+                        + "FROM unnest(?::bigint[], ?::int[]) AS d(id, qty) WHERE v.id = d.id "
+                        + "RETURNING v.id, v.stock_quantity, v.reserved_quantity, v.version")) {
+                    ps.setArray(1, con.createArrayOf("int8", releasedByVariant.keySet().toArray()));
+                    ps.setArray(2, con.createArrayOf("int4", releasedByVariant.values().toArray()));
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) {
+                            availabilitySnapshot.update(rs.getLong(1), rs.getInt(2), rs.getInt(3), rs.getLong(4));
+                        }
+                    }
                 }
-            }
+                logger.info("Released expired reservations on {} variants", releasedByVariant.size());
+                return null;
+            });
         } catch (Exception e) {
             logger.error("Reservation expiry worker failed: {}", e.getMessage());
         } finally {
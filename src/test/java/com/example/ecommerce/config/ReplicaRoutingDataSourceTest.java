@@ -0,0 +1,110 @@
+package com.example.ecommerce.config;
+
+import com.example.ecommerce.entity.Money;
+import com.example.ecommerce.entity.Product;
+import com.example.ecommerce.repository.ProductRepository;
+import com.example.ecommerce.service.AvailabilitySnapshot;
+import com.example.ecommerce.service.EntityCacheInvalidator;
+import com.example.ecommerce.service.PricingAttributeCache;
+import com.example.ecommerce.support.EmbeddedDatabase;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// The "replica" is a second database that never replays anything, i.e. one lagging forever until a test catches it up
+@SpringBootTest
+public class ReplicaRoutingDataSourceTest {
+    private static final int MAX_LAG_SECONDS = 1;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private PricingAttributeCache pricingAttributeCache;
+    @Autowired
+    private EntityCacheInvalidator entityCacheInvalidator;
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private AvailabilitySnapshot availabilitySnapshot;
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        EmbeddedDatabase.register(registry, 5);
+        EmbeddedDatabase.registerReplica(registry, MAX_LAG_SECONDS);
+    }
+
+    @Test
+    public void pricingAttributeMissesLoadFromThePrimary() {
+        Long productId = insertProduct("20.00", "10.00");
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        readOnly.executeWithoutResult(status -> {
+            // The enclosing read-only transaction is on the replica...
+            assertEquals(new BigDecimal("10.00"), basePrice(jdbcTemplate, productId));
+            // ...but the near-cache must not be filled from it
+            assertEquals(Money.of(new BigDecimal("20.00")), pricingAttributeCache.getProduct(productId).basePrice);
+        });
+    }
+
+    @Test
+    public void entityCacheIsEvictedAgainAfterMaxLag() throws InterruptedException {
+        Long productId = insertProduct("10.00", "10.00");
+        assertEquals(Money.of(new BigDecimal("10.00")), cachedBasePrice(productId));
+
+        jdbcTemplate.update("UPDATE products SET base_price = 20 WHERE id = ?", productId);
+        entityCacheInvalidator.evict(Product.class, List.of(productId));
+        // Reloaded from the replica, which has not replayed the update yet
+        assertEquals(Money.of(new BigDecimal("10.00")), cachedBasePrice(productId));
+
+        new JdbcTemplate(EmbeddedDatabase.replicaDataSource())
+            .update("UPDATE products SET base_price = 20 WHERE id = ?", productId);
+        assertEquals(Money.of(new BigDecimal("10.00")), cachedBasePrice(productId));
+
+        Thread.sleep(MAX_LAG_SECONDS * 1000L + 500);
+        assertEquals(Money.of(new BigDecimal("20.00")), cachedBasePrice(productId));
+    }
+
+    @Test
+    public void availabilityLoadsFromThePrimary() {
+        Long productId = insertProduct("20.00", "20.00");
+        Long variantId = jdbcTemplate.queryForObject("INSERT INTO variants (sku, title, stock_quantity, reserved_quantity, "
+            + "product_id) VALUES (?, 'Replica variant', 10, 4, ?) RETURNING id", Long.class, "replica-" + productId, productId);
+        new JdbcTemplate(EmbeddedDatabase.replicaDataSource()).update("INSERT INTO variants (id, sku, title, stock_quantity, "
+            + "reserved_quantity, product_id) VALUES (?, ?, 'Replica variant', 10, 0, ?)", variantId, "replica-" + productId,
+            productId);
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        readOnly.executeWithoutResult(status -> assertEquals(6, availabilitySnapshot.available(variantId)));
+    }
+
+    private Long insertProduct(String primaryPrice, String replicaPrice) {
+        String slug = "replica-" + System.nanoTime();
+        Long productId = jdbcTemplate.queryForObject("INSERT INTO products (name, slug, base_price, status) "
+            + "VALUES (?, ?, ?, 'ACTIVE') RETURNING id", Long.class, slug, slug, new BigDecimal(primaryPrice));
+        new JdbcTemplate(EmbeddedDatabase.replicaDataSource()).update("INSERT INTO products (id, name, slug, base_price, "
+            + "status) VALUES (?, ?, ?, ?, 'ACTIVE')", productId, slug, slug, new BigDecimal(replicaPrice));
+        return productId;
+    }
+
+    // findById runs in its own read-only transaction, so a second-level cache miss is loaded from the replica
+    private Money cachedBasePrice(Long productId) {
+        return productRepository.findById(productId).orElseThrow().getBasePrice();
+    }
+
+    private static BigDecimal basePrice(JdbcTemplate jdbc, Long productId) {
+        return jdbc.queryForObject("SELECT base_price FROM products WHERE id = ?", BigDecimal.class, productId);
+    }
+}
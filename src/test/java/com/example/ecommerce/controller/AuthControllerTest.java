@@ -1,39 +1,40 @@
-package test.java.com.example.ecommerce.controller;
+package com.example.ecommerce.controller;
 
 import com.example.ecommerce.entity.User;
-import com.example.ecommerce.repository.UserRepository;
+import com.example.ecommerce.support.EmbeddedDatabase;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
-import org.springframework.http.MediaType;
-import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
 public class AuthControllerTest {
     @Autowired
-    private WebTestClient webTestClient;
-    @Autowired
-    private UserRepository userRepository;
+    private TestRestTemplate restTemplate;
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        EmbeddedDatabase.register(registry, 5);
+    }
 
     @Test
     public void testRegisterAndLogin() {
         User user = new User();
-        user.setEmail("testuser@example.com");
+        user.setEmail("testuser-" + System.nanoTime() + "@example.com");
         user.setPassword("testpass");
         user.setTier("BRONZE");
-        webTestClient.post().uri("/auth/register")
-            .contentType(MediaType.APPLICATION_JSON)
-            .bodyValue(user)
-            .exchange()
-            .expectStatus().isCreated();
+        ResponseEntity<User> registered = restTemplate.postForEntity("/auth/register", user, User.class);
+        assertEquals(HttpStatus.CREATED, registered.getStatusCode());
 
-        webTestClient.post().uri("/auth/login")
-            .contentType(MediaType.APPLICATION_JSON)
-            .bodyValue(user)
-            .exchange()
-            .expectStatus().isOk()
-            .expectBody(String.class).value(token -> {
-                assert token != null && token.length() > 10;
-            });
+        ResponseEntity<String> login = restTemplate.postForEntity("/auth/login", user, String.class);
+        assertEquals(HttpStatus.OK, login.getStatusCode());
+        assertTrue(login.getBody() != null && login.getBody().length() > 10);
     }
 }
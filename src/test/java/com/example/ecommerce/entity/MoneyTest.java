@@ -0,0 +1,48 @@
+package com.example.ecommerce.entity;
+
+import org.junit.jupiter.api.Test;
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class MoneyTest {
+    @Test
+    public void ofKeepsExactCents() {
+        assertEquals(1999, Money.of(new BigDecimal("19.99")).cents());
+        assertEquals(1990, Money.of(new BigDecimal("19.9")).cents());
+        assertEquals(-5, Money.of(new BigDecimal("-0.05")).cents());
+        assertEquals(new BigDecimal("19.90"), Money.of(new BigDecimal("19.9")).toBigDecimal());
+        assertSame(Money.ZERO, Money.of(new BigDecimal("0.00")));
+    }
+
+    @Test
+    public void ofRejectsFractionsOfACent() {
+        assertThrows(IllegalArgumentException.class, () -> Money.of(new BigDecimal("1.005")));
+        assertThrows(IllegalArgumentException.class, () -> Money.of(new BigDecimal("1E+30")));
+    }
+
+    @Test
+    public void percentOfRoundsHalfUpAwayFromZero() {
+        // 10% of 0.05 is 0.005, rounded up to a cent
+        assertEquals(1, Money.percentOf(5, 10));
+        assertEquals(0, Money.percentOf(4, 10));
+        assertEquals(-1, Money.percentOf(5, -10));
+        assertEquals(-1, Money.percentOf(-5, 10));
+        // 7.5% of 19.99 is 1.49925
+        assertEquals(150, Money.percentOf(1999, 7.5));
+        // 15% of 699.99 is 104.9985
+        assertEquals(10500, Money.percentOf(69999, 15));
+        assertEquals(0, Money.percentOf(69999, 0));
+    }
+
+    @Test
+    public void arithmeticIsExact() {
+        Money third = Money.ofCents(333);
+        assertEquals(999, third.times(3).cents());
+        assertEquals(1000, third.times(3).plus(Money.ofCents(1)).cents());
+        assertEquals(Money.ZERO, third.minus(third));
+        assertThrows(ArithmeticException.class, () -> Money.ofCents(Long.MAX_VALUE).plus(Money.ofCents(1)));
+    }
+}
@@ -0,0 +1,340 @@
+package com.example.ecommerce.load;
+
+import com.example.ecommerce.entity.Cart;
+import com.example.ecommerce.entity.CartItem;
+import com.example.ecommerce.entity.Reservation;
+import com.example.ecommerce.repository.CartRepository;
+import com.example.ecommerce.repository.ReservationRepository;
+import com.example.ecommerce.service.CartService;
+import com.example.ecommerce.service.CheckoutService;
+import com.example.ecommerce.support.EmbeddedDatabase;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Load harness for the cart and checkout paths. Many virtual users (one thread each) add, update and remove
+ * items and check out against a small set of hot, low-stock variants and a large set of cold ones, on an
+ * embedded PostgreSQL with the real schema. Prints throughput, latency percentiles, deadlocks and retries,
+ * then checks that no stock was oversold.
+ *
+ * Runs only with the load-test profile: mvn -Pload-test test -Dload.users=2000 -Dload.duration-seconds=60
+ */
+@SpringBootTest(properties = {
+    "spring.jpa.show-sql=false",
+    "logging.level.com.example.ecommerce=WARN"
+})
+public class CartCheckoutLoadTest {
+    private static final int USERS = Integer.getInteger("load.users", 1000);
+    private static final int DURATION_SECONDS = Integer.getInteger("load.duration-seconds", 30);
+    private static final int HOT_VARIANTS = Integer.getInteger("load.hot-variants", 10);
+    private static final int HOT_STOCK = Integer.getInteger("load.hot-stock", 200);
+    private static final int COLD_VARIANTS = Integer.getInteger("load.cold-variants", 2000);
+    private static final int COLD_STOCK = Integer.getInteger("load.cold-stock", 100000);
+    // Share of item operations that pick a hot variant
+    private static final double HOT_SHARE = Double.parseDouble(System.getProperty("load.hot-share", "0.8"));
+    private static final String MIX = System.getProperty("load.mix", "add:40,update:20,remove:15,checkout:25");
+    private static final int MAX_RETRIES = Integer.getInteger("load.max-retries", 3);
+    private static final int POOL_SIZE = Integer.getInteger("load.pool-size", 20);
+
+    @Autowired
+    private CartService cartService;
+    @Autowired
+    private CheckoutService checkoutService;
+    @Autowired
+    private CartRepository cartRepository;
+    @Autowired
+    private ReservationRepository reservationRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    enum Op { ADD, UPDATE, REMOVE, CHECKOUT }
+
+    private final LongAdder deadlocks = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final Map<Op, LongAdder> rejected = new EnumMap<>(Op.class);
+    private final Map<Op, LongAdder> errors = new EnumMap<>(Op.class);
+    // Quantities taken out of stock by successful checkouts, per variant
+    private final Map<Long, LongAdder> sold = new ConcurrentHashMap<>();
+    private final LongAdder checkouts = new LongAdder();
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        EmbeddedDatabase.register(registry, POOL_SIZE);
+    }
+
+    @Test
+    public void cartAndCheckoutUnderLoad() throws Exception {
+        for (Op op : Op.values()) {
+            rejected.put(op, new LongAdder());
+            errors.put(op, new LongAdder());
+        }
+        List<Long> userIds = seed();
+        List<Long> variantIds = jdbcTemplate.queryForList("SELECT id FROM variants ORDER BY id", Long.class);
+        long[] hot = variantIds.subList(0, HOT_VARIANTS).stream().mapToLong(Long::longValue).toArray();
+        long[] cold = variantIds.subList(HOT_VARIANTS, variantIds.size()).stream().mapToLong(Long::longValue).toArray();
+        Map<Long, Integer> initialStock = stockByVariant();
+        int[] weights = parseMix();
+
+        long deadline = System.nanoTime() + DURATION_SECONDS * 1_000_000_000L;
+        List<VirtualUser> users = new ArrayList<>();
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(USERS);
+        for (int i = 0; i < USERS; i++) {
+            VirtualUser user = new VirtualUser(userIds.get(i), hot, cold, weights, deadline);
+            users.add(user);
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                    user.run();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            }, "vu-" + i);
+            thread.start();
+        }
+        long began = System.nanoTime();
+        start.countDown();
+        done.await();
+        double elapsedSeconds = (System.nanoTime() - began) / 1e9;
+
+        report(users, elapsedSeconds);
+        checkInvariants(initialStock);
+    }
+
+    private List<Long> seed() {
+        jdbcTemplate.update("INSERT INTO users (email, password, tier) "
+            + "SELECT 'load' || g || '@example.com', 'x', 'SILVER' FROM generate_series(1, ?) g", USERS);
+        int variants = HOT_VARIANTS + COLD_VARIANTS;
+        int products = (variants + 9) / 10;
+        jdbcTemplate.update("INSERT INTO products (name, slug, base_price, status) "
+            + "SELECT 'Load product ' || g, 'load-product-' || g, 10 + g % 90, 'ACTIVE' FROM generate_series(1, ?) g", products);
+        // Ten variants per product; the first HOT_VARIANTS get the low stock
+        jdbcTemplate.update("INSERT INTO variants (sku, title, stock_quantity, product_id) "
+            + "SELECT 'LOAD-' || g, 'Load variant ' || g, CASE WHEN g <= ? THEN ? ELSE ? END, p.id "
+            + "FROM generate_series(1, ?) g "
+            + "JOIN (SELECT id, row_number() OVER (ORDER BY id) AS rn FROM products) p ON p.rn = (g - 1) / 10 + 1 "
+            + "ORDER BY g", HOT_VARIANTS, HOT_STOCK, COLD_STOCK, variants);
+        return jdbcTemplate.queryForList("SELECT id FROM users ORDER BY id", Long.class);
+    }
+
+    private Map<Long, Integer> stockByVariant() {
+        Map<Long, Integer> stock = new HashMap<>();
+        jdbcTemplate.query("SELECT id, stock_quantity FROM variants",
+            rs -> { stock.put(rs.getLong(1), rs.getInt(2)); });
+        return stock;
+    }
+
+    private static int[] parseMix() {
+        int[] weights = new int[Op.values().length];
+        for (String part : MIX.split(",")) {
+            String[] kv = part.trim().split(":");
+            weights[Op.valueOf(kv[0].trim().toUpperCase()).ordinal()] = Integer.parseInt(kv[1].trim());
+        }
+        return weights;
+    }
+
+    private class VirtualUser {
+        final long userId;
+        final long[] hot;
+        final long[] cold;
+        final int[] weights;
+        final int totalWeight;
+        final long deadline;
+        final Map<Op, long[]> latencies = new EnumMap<>(Op.class);
+        final Map<Op, Integer> counts = new EnumMap<>(Op.class);
+        final List<Long> items = new ArrayList<>();
+        Long cartId;
+
+        VirtualUser(long userId, long[] hot, long[] cold, int[] weights, long deadline) {
+            this.userId = userId;
+            this.hot = hot;
+            this.cold = cold;
+            this.weights = weights;
+            this.totalWeight = Arrays.stream(weights).sum();
+            this.deadline = deadline;
+            for (Op op : Op.values()) {
+                latencies.put(op, new long[64]);
+                counts.put(op, 0);
+            }
+        }
+
+        void run() {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            cartId = newCart();
+            while (System.nanoTime() < deadline) {
+                Op op = items.isEmpty() ? Op.ADD : pick(random);
+                // Checkout needs the reservation ids; looking them up is not part of the measured call
+                List<Long> reservationIds = op == Op.CHECKOUT ? reservationIds() : null;
+                int index = items.isEmpty() ? -1 : random.nextInt(items.size());
+                long variantId = random.nextDouble() < HOT_SHARE ? hot[random.nextInt(hot.length)] : cold[random.nextInt(cold.length)];
+                int quantity = 1 + random.nextInt(3);
+                long began = System.nanoTime();
+                boolean ok = execute(op, () -> {
+                    switch (op) {
+                        case ADD -> {
+                            CartItem item = cartService.addItemToCart(cartId, variantId, quantity, "SILVER", null);
+                            items.add(item.getId());
+                        }
+                        case UPDATE -> cartService.updateCartItemQuantity(items.get(index), quantity);
+                        case REMOVE -> {
+                            cartService.removeCartItem(items.get(index));
+                            items.remove(index);
+                        }
+                        case CHECKOUT -> {
+                            checkoutService.checkoutCart(cartId, reservationIds);
+                            checkouts.increment();
+                            items.clear();
+                            cartId = newCart();
+                        }
+                    }
+                });
+                record(op, System.nanoTime() - began);
+                if (ok && op == Op.CHECKOUT) {
+                    for (Reservation r : reservationRepository.findAllById(reservationIds)) {
+                        sold.computeIfAbsent(r.getVariantId(), k -> new LongAdder()).add(r.getQuantity());
+                    }
+                }
+            }
+            // Leave nothing reserved behind so the stock invariants can be checked exactly
+            for (Long itemId : items) {
+                execute(Op.REMOVE, () -> cartService.removeCartItem(itemId));
+            }
+        }
+
+        private Op pick(ThreadLocalRandom random) {
+            int r = random.nextInt(totalWeight);
+            for (Op op : Op.values()) {
+                r -= weights[op.ordinal()];
+                if (r < 0) return op;
+            }
+            return Op.ADD;
+        }
+
+        private Long newCart() {
+            Cart cart = new Cart();
+            cart.setUserId(userId);
+            cart.setStatus("ACTIVE");
+            return cartRepository.save(cart).getId();
+        }
+
+        private List<Long> reservationIds() {
+            List<Long> ids = new ArrayList<>();
+            for (Long itemId : items) {
+                for (Reservation r : reservationRepository.findByCartItemIdAndNotReleased(itemId)) {
+                    ids.add(r.getId());
+                }
+            }
+            return ids;
+        }
+
+        private void record(Op op, long nanos) {
+            long[] samples = latencies.get(op);
+            int n = counts.get(op);
+            if (n == samples.length) {
+                samples = Arrays.copyOf(samples, n * 2);
+                latencies.put(op, samples);
+            }
+            samples[n] = nanos;
+            counts.put(op, n + 1);
+        }
+    }
+
+    // Runs the operation, retrying lock failures and deadlocks. Returns whether it succeeded.
+    private boolean execute(Op op, Runnable action) {
+        for (int attempt = 0; ; attempt++) {
+            try {
+                action.run();
+                return true;
+            } catch (ConcurrencyFailureException e) {
+                if (isDeadlock(e)) deadlocks.increment();
+                if (attempt >= MAX_RETRIES) {
+                    errors.get(op).increment();
+                    return false;
+                }
+                retries.increment();
+            } catch (IllegalStateException e) {
+                // Insufficient stock and similar business rejections
+                rejected.get(op).increment();
+                return false;
+            } catch (RuntimeException e) {
+                errors.get(op).increment();
+                return false;
+            }
+        }
+    }
+
+    private static boolean isDeadlock(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof SQLException && "40P01".equals(((SQLException) t).getSQLState())) return true;
+        }
+        return false;
+    }
+
+    private void report(List<VirtualUser> users, double elapsedSeconds) {
+        System.out.printf("%nCart/checkout load: %d users, %.1fs, %d hot variants (stock %d), %d cold, hot share %.2f, mix %s, pool %d%n",
+            USERS, elapsedSeconds, HOT_VARIANTS, HOT_STOCK, COLD_VARIANTS, HOT_SHARE, MIX, POOL_SIZE);
+        System.out.printf("%-9s %9s %9s %9s %9s %9s %9s %7s%n", "op", "count", "ops/s", "p50 ms", "p99 ms", "p99.9 ms", "rejected", "errors");
+        long total = 0;
+        for (Op op : Op.values()) {
+            int n = 0;
+            for (VirtualUser user : users) n += user.counts.get(op);
+            long[] all = new long[n];
+            int i = 0;
+            for (VirtualUser user : users) {
+                int c = user.counts.get(op);
+                System.arraycopy(user.latencies.get(op), 0, all, i, c);
+                i += c;
+            }
+            Arrays.sort(all);
+            total += n;
+            System.out.printf("%-9s %9d %9.0f %9.2f %9.2f %9.2f %9d %7d%n", op.name().toLowerCase(), n, n / elapsedSeconds,
+                percentile(all, 0.50), percentile(all, 0.99), percentile(all, 0.999), rejected.get(op).sum(), errors.get(op).sum());
+        }
+        System.out.printf("%-9s %9d %9.0f%n", "total", total, total / elapsedSeconds);
+        System.out.printf("checkouts=%d deadlocks=%d retries=%d%n", checkouts.sum(), deadlocks.sum(), retries.sum());
+    }
+
+    private static double percentile(long[] sorted, double q) {
+        if (sorted.length == 0) return 0;
+        int index = (int) Math.ceil(q * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+
+    private void checkInvariants(Map<Long, Integer> initialStock) {
+        Integer broken = jdbcTemplate.queryForObject("SELECT count(*) FROM variants "
+            + "WHERE stock_quantity < 0 OR reserved_quantity < 0 OR reserved_quantity > stock_quantity", Integer.class);
+        assertEquals(0, broken, "variants with negative stock or more reserved than in stock");
+        Integer mismatched = jdbcTemplate.queryForObject("SELECT count(*) FROM variants v WHERE v.reserved_quantity <> "
+            + "COALESCE((SELECT sum(r.quantity) FROM reservations r WHERE r.variant_id = v.id AND NOT r.released), 0)", Integer.class);
+        assertEquals(0, mismatched, "variants whose reserved quantity differs from their open reservations");
+        Integer orders = jdbcTemplate.queryForObject("SELECT count(*) FROM orders", Integer.class);
+        assertEquals(checkouts.sum(), orders.longValue(), "orders created vs successful checkouts");
+        Map<Long, Integer> finalStock = stockByVariant();
+        for (Map.Entry<Long, Integer> entry : initialStock.entrySet()) {
+            LongAdder soldQuantity = sold.get(entry.getKey());
+            long expected = entry.getValue() - (soldQuantity == null ? 0 : soldQuantity.sum());
+            assertEquals(expected, finalStock.get(entry.getKey()).longValue(), "stock of variant " + entry.getKey());
+        }
+        System.out.println("Invariants hold: no oversell, reservations match reserved quantities, stock matches checkouts");
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.ecommerce.service;
+
+import com.example.ecommerce.support.EmbeddedDatabase;
+import com.example.ecommerce.support.TestCatalog;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+public class AvailabilitySnapshotTest {
+    @Autowired
+    private AvailabilitySnapshot availabilitySnapshot;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        EmbeddedDatabase.register(registry, 5);
+    }
+
+    // Updates can arrive out of order (after-commit hooks on different threads, Redis from other nodes)
+    @Test
+    public void olderVersionDoesNotReplaceNewerSnapshot() {
+        TestCatalog catalog = new TestCatalog(jdbcTemplate, "snapshot");
+        Long variantId = catalog.variant(catalog.product(), 10, 0);
+        List<Integer> changes = new ArrayList<>();
+        availabilitySnapshot.addListener((id, available) -> {
+            if (id.equals(variantId)) changes.add(available);
+        });
+        assertEquals(10, availabilitySnapshot.available(variantId));
+
+        availabilitySnapshot.update(variantId, 10, 3, 5L);
+        assertEquals(7, availabilitySnapshot.available(variantId));
+
+        availabilitySnapshot.update(variantId, 10, 1, 4L);
+        assertEquals(7, availabilitySnapshot.available(variantId));
+
+        availabilitySnapshot.update(variantId, 10, 6, 6L);
+        assertEquals(4, availabilitySnapshot.available(variantId));
+        assertEquals(List.of(7, 4), changes);
+    }
+}
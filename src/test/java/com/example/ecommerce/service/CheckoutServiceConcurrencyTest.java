@@ -1,17 +1,21 @@
-package test.java.com.example.ecommerce.service;
+package com.example.ecommerce.service;
 
+import com.example.ecommerce.entity.Money;
 import com.example.ecommerce.entity.Variant;
-import com.example.ecommerce.entity.Reservation;
 import com.example.ecommerce.repository.VariantRepository;
-import com.example.ecommerce.repository.ReservationRepository;
+import com.example.ecommerce.support.EmbeddedDatabase;
+import com.example.ecommerce.support.TestCatalog;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
-import org.springframework.transaction.annotation.Transactional;
-import java.util.Arrays;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -22,55 +26,64 @@ public class CheckoutServiceConcurrencyTest {
     @Autowired
     private VariantRepository variantRepository;
     @Autowired
-    private ReservationRepository reservationRepository;
+    private JdbcTemplate jdbcTemplate;
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        EmbeddedDatabase.register(registry, 5);
+    }
 
     @Test
-    @Transactional
     public void testConcurrentCheckoutPreventsOversell() throws InterruptedException {
-        // Setup: create a variant with 5 in stock, 2 reservations of 3 each (overlapping)
+        // Setup: a variant with 5 in stock and two carts holding reservations of 3 each (overlapping)
+        TestCatalog catalog = new TestCatalog(jdbcTemplate, "oversell");
+        Long userId = catalog.user("SILVER");
+        Long productId = catalog.product();
         Variant variant = new Variant();
-        variant.setSku("TEST-SKU");
+        variant.setSku("oversell-" + productId);
         variant.setTitle("Test Variant");
+        variant.setProductId(productId);
         variant.setStockQuantity(5);
         variant.setReservedQuantity(6);
-        variant.setPriceAdjustment(0.0);
-        variant = variantRepository.save(variant);
-
-        Reservation r1 = new Reservation();
-        r1.setVariantId(variant.getId());
-        r1.setQuantity(3);
-        r1.setReleased(false);
-        r1 = reservationRepository.save(r1);
-
-        Reservation r2 = new Reservation();
-        r2.setVariantId(variant.getId());
-        r2.setQuantity(3);
-        r2.setReleased(false);
-        r2 = reservationRepository.save(r2);
+        variant.setPriceAdjustment(Money.ZERO);
+        Long variantId = variantRepository.save(variant).getId();
+        long[] carts = new long[2];
+        long[] reservations = new long[2];
+        for (int i = 0; i < 2; i++) {
+            carts[i] = jdbcTemplate.queryForObject(
+                "INSERT INTO carts (user_id, status) VALUES (?, 'ACTIVE') RETURNING id", Long.class, userId);
+            Long itemId = jdbcTemplate.queryForObject("INSERT INTO cart_items (cart_id, variant_id, quantity, unit_price, "
+                + "subtotal, snapshot_at) VALUES (?, ?, 3, 20, 60, NOW()) RETURNING id", Long.class, carts[i], variantId);
+            reservations[i] = jdbcTemplate.queryForObject("INSERT INTO reservations (variant_id, cart_item_id, quantity, "
+                + "expires_at) VALUES (?, ?, 3, NOW() + INTERVAL '15 minutes') RETURNING id", Long.class, variantId, itemId);
+        }
 
         // Simulate two concurrent checkouts
         ExecutorService executor = Executors.newFixedThreadPool(2);
-        CountDownLatch latch = new CountDownLatch(2);
-        Runnable checkout1 = () -> {
-            try {
-                checkoutService.checkoutCart(1L, Arrays.asList(r1.getId()), 100.0);
-            } catch (Exception ignored) {}
-            latch.countDown();
-        };
-        Runnable checkout2 = () -> {
-            try {
-                checkoutService.checkoutCart(1L, Arrays.asList(r2.getId()), 100.0);
-            } catch (Exception ignored) {}
-            latch.countDown();
-        };
-        executor.submit(checkout1);
-        executor.submit(checkout2);
-        latch.await();
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(2);
+        AtomicInteger succeeded = new AtomicInteger();
+        for (int i = 0; i < 2; i++) {
+            long cartId = carts[i];
+            long reservationId = reservations[i];
+            executor.submit(() -> {
+                try {
+                    start.await();
+                    checkoutService.checkoutCart(cartId, List.of(reservationId));
+                    succeeded.incrementAndGet();
+                } catch (Exception ignored) {
+                }
+                done.countDown();
+            });
+        }
+        start.countDown();
+        done.await();
         executor.shutdown();
 
-        // Only one reservation should succeed, the other should fail due to insufficient stock
-        Variant updated = variantRepository.findById(variant.getId()).orElseThrow();
-        assertTrue(updated.getStockQuantity() >= 0);
-        assertTrue(updated.getStockQuantity() <= 2);
+        // Only one checkout should succeed, the other should fail due to insufficient stock
+        Variant updated = variantRepository.findById(variantId).orElseThrow();
+        assertEquals(1, succeeded.get());
+        assertEquals(2, updated.getStockQuantity());
+        assertEquals(3, updated.getReservedQuantity());
     }
 }
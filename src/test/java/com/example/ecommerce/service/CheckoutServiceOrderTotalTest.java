@@ -0,0 +1,58 @@
+package com.example.ecommerce.service;
+
+import com.example.ecommerce.support.EmbeddedDatabase;
+import com.example.ecommerce.support.TestCatalog;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+public class CheckoutServiceOrderTotalTest {
+    @Autowired
+    private CheckoutService checkoutService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        EmbeddedDatabase.register(registry, 5);
+    }
+
+    // Line subtotals are snapshots rounded to the cent; the order total is their exact sum, never re-rounded
+    @Test
+    public void orderTotalIsSumOfLineSubtotals() {
+        TestCatalog catalog = new TestCatalog(jdbcTemplate, "total");
+        Long userId = catalog.user("SILVER");
+        Long productId = catalog.product();
+        Long cartId = jdbcTemplate.queryForObject(
+            "INSERT INTO carts (user_id, status) VALUES (?, 'ACTIVE') RETURNING id", Long.class, userId);
+        String[][] lines = { { "3", "3.33", "9.99" }, { "7", "0.10", "0.70" }, { "3", "19.99", "59.97" }, { "1", "0.01", "0.01" } };
+        List<Long> reservationIds = new ArrayList<>();
+        for (int i = 0; i < lines.length; i++) {
+            int quantity = Integer.parseInt(lines[i][0]);
+            Long variantId = catalog.variant(productId, 10, quantity);
+            Long itemId = jdbcTemplate.queryForObject("INSERT INTO cart_items (cart_id, variant_id, quantity, unit_price, "
+                + "subtotal, snapshot_at) VALUES (?, ?, ?, ?, ?, NOW()) RETURNING id", Long.class, cartId, variantId,
+                quantity, new BigDecimal(lines[i][1]), new BigDecimal(lines[i][2]));
+            reservationIds.add(jdbcTemplate.queryForObject("INSERT INTO reservations (variant_id, cart_item_id, quantity, "
+                + "expires_at) VALUES (?, ?, ?, NOW() + INTERVAL '15 minutes') RETURNING id", Long.class,
+                variantId, itemId, quantity));
+        }
+
+        checkoutService.checkoutCart(cartId, reservationIds);
+
+        BigDecimal total = jdbcTemplate.queryForObject("SELECT total FROM orders WHERE cart_id = ?", BigDecimal.class, cartId);
+        BigDecimal subtotals = jdbcTemplate.queryForObject(
+            "SELECT SUM(subtotal) FROM cart_items WHERE cart_id = ?", BigDecimal.class, cartId);
+        assertEquals(new BigDecimal("70.67"), total);
+        assertEquals(subtotals, total);
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.ecommerce.service;
+
+import com.example.ecommerce.entity.Cart;
+import com.example.ecommerce.entity.CartItem;
+import com.example.ecommerce.entity.Reservation;
+import com.example.ecommerce.repository.CartRepository;
+import com.example.ecommerce.repository.ReservationRepository;
+import com.example.ecommerce.support.EmbeddedDatabase;
+import com.example.ecommerce.support.TestCatalog;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.example.ecommerce.support.SqlStatementAssertions.assertMaxStatements;
+
+@SpringBootTest
+public class CheckoutServiceSqlBudgetTest {
+    @Autowired
+    private CheckoutService checkoutService;
+    @Autowired
+    private CartService cartService;
+    @Autowired
+    private CartRepository cartRepository;
+    @Autowired
+    private ReservationRepository reservationRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        EmbeddedDatabase.register(registry, 5);
+    }
+
+    // Fixed statements (cart, reservations, cart items, batched updates, order insert) plus one row lock per variant
+    @ParameterizedTest
+    @ValueSource(ints = { 1, 5, 25 })
+    public void checkoutStaysWithinStatementBudget(int items) {
+        TestCatalog catalog = new TestCatalog(jdbcTemplate, "budget-" + items);
+        Long userId = catalog.user("SILVER");
+        Long productId = catalog.product();
+        Cart cart = new Cart();
+        cart.setUserId(userId);
+        cart.setStatus("ACTIVE");
+        Long cartId = cartRepository.save(cart).getId();
+        List<Long> reservationIds = new ArrayList<>();
+        for (int i = 0; i < items; i++) {
+            Long variantId = catalog.variant(productId, 10, 0);
+            CartItem item = cartService.addItemToCart(cartId, variantId, 1, "SILVER", null);
+            for (Reservation r : reservationRepository.findByCartItemIdAndNotReleased(item.getId())) {
+                reservationIds.add(r.getId());
+            }
+        }
+
+        assertMaxStatements(10 + items, () -> checkoutService.checkoutCart(cartId, reservationIds));
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.ecommerce.service;
+
+import com.example.ecommerce.entity.Money;
+import com.example.ecommerce.entity.PricingRule;
+import com.example.ecommerce.repository.PricingRuleRepository;
+import com.example.ecommerce.support.EmbeddedDatabase;
+import com.example.ecommerce.support.TestCatalog;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import java.math.BigDecimal;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Band rules apply while the level they measure is inside [threshold_min, threshold_max)
+@SpringBootTest
+public class PricingEngineThresholdTest {
+    @Autowired
+    private PricingEngine pricingEngine;
+    @Autowired
+    private SalesVelocityTracker salesVelocityTracker;
+    @Autowired
+    private AvailabilitySnapshot availabilitySnapshot;
+    @Autowired
+    private PricingRuleRepository pricingRuleRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        EmbeddedDatabase.register(registry, 5);
+    }
+
+    @Test
+    public void demandAppliesOnlyInsideTheThresholdBand() {
+        long[] ids = insertVariant("demand", 100);
+        long productId = ids[0];
+        long variantId = ids[1];
+        saveRule("DEMAND", variantId, 5, 10);
+
+        salesVelocityTracker.recordSales(Map.of(variantId, 4));
+        assertEquals(price("20.00"), quote(productId, variantId));
+        salesVelocityTracker.recordSales(Map.of(variantId, 1));
+        assertEquals(price("22.00"), quote(productId, variantId));
+        salesVelocityTracker.recordSales(Map.of(variantId, 4));
+        assertEquals(price("22.00"), quote(productId, variantId));
+        salesVelocityTracker.recordSales(Map.of(variantId, 1));
+        assertEquals(price("20.00"), quote(productId, variantId));
+    }
+
+    @Test
+    public void scarcityAppliesOnlyInsideTheThresholdBand() {
+        long[] ids = insertVariant("scarcity", 100);
+        long productId = ids[0];
+        long variantId = ids[1];
+        saveRule("SCARCITY", variantId, 5, 10);
+
+        reserve(variantId, 90);
+        assertEquals(price("20.00"), quote(productId, variantId));
+        reserve(variantId, 1);
+        assertEquals(price("22.00"), quote(productId, variantId));
+        reserve(variantId, 4);
+        assertEquals(price("22.00"), quote(productId, variantId));
+        reserve(variantId, 1);
+        assertEquals(price("20.00"), quote(productId, variantId));
+    }
+
+    // Commits a reservation change and pushes it to the snapshot, as the reservation paths do
+    private void reserve(long variantId, int quantity) {
+        Map<String, Object> row = jdbcTemplate.queryForMap("UPDATE variants SET reserved_quantity = reserved_quantity + ?, "
+            + "version = version + 1 WHERE id = ? RETURNING stock_quantity, reserved_quantity, version", quantity, variantId);
+        availabilitySnapshot.update(variantId, (Integer) row.get("stock_quantity"), (Integer) row.get("reserved_quantity"),
+            (Long) row.get("version"));
+    }
+
+    private long[] insertVariant(String prefix, int stock) {
+        TestCatalog catalog = new TestCatalog(jdbcTemplate, prefix);
+        Long productId = catalog.product();
+        return new long[] { productId, catalog.variant(productId, stock, 0) };
+    }
+
+    // 10% markup on the variant, through the repository so the cached rule query is invalidated
+    private void saveRule(String type, long variantId, int thresholdMin, int thresholdMax) {
+        PricingRule rule = new PricingRule();
+        rule.setType(type);
+        rule.setTargetType("VARIANT");
+        rule.setTargetId(variantId);
+        rule.setPercentage(10.0);
+        if ("DEMAND".equals(type)) rule.setWindowMinutes(5);
+        rule.setThresholdMin(thresholdMin);
+        rule.setThresholdMax(thresholdMax);
+        rule.setActive(true);
+        pricingRuleRepository.save(rule);
+    }
+
+    private Money quote(long productId, long variantId) {
+        return pricingEngine.calculatePrice(productId, variantId, 1, "BRONZE", null, null).finalUnitPrice;
+    }
+
+    private static Money price(String amount) {
+        return Money.of(new BigDecimal(amount));
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.ecommerce.service;
+
+import com.example.ecommerce.entity.Product;
+import com.example.ecommerce.entity.Variant;
+import com.example.ecommerce.support.EmbeddedDatabase;
+import com.example.ecommerce.support.TestCatalog;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+public class ProductDetailCacheTest {
+    @Autowired
+    private ProductDetailCache productDetailCache;
+    @Autowired
+    private AvailabilitySnapshot availabilitySnapshot;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        EmbeddedDatabase.register(registry, 5);
+    }
+
+    // Reservations are not evicted; the cached detail picks up the published quantities instead
+    @Test
+    public void quantitiesComeFromTheAvailabilitySnapshot() {
+        TestCatalog catalog = new TestCatalog(jdbcTemplate, "detail");
+        Long productId = catalog.product();
+        Long variantId = catalog.variant(productId, 10, 0);
+        assertEquals(0, variant(productId).getReservedQuantity());
+
+        jdbcTemplate.update("UPDATE variants SET reserved_quantity = 4, version = version + 1 WHERE id = ?", variantId);
+        availabilitySnapshot.update(variantId, 10, 4, 1L);
+        Variant variant = variant(productId);
+        assertEquals(10, variant.getStockQuantity());
+        assertEquals(4, variant.getReservedQuantity());
+        assertEquals(1L, variant.getVersion());
+
+        // A checkout moves reserved units out of stock
+        availabilitySnapshot.update(variantId, 7, 1, 2L);
+        variant = variant(productId);
+        assertEquals(7, variant.getStockQuantity());
+        assertEquals(1, variant.getReservedQuantity());
+    }
+
+    private Variant variant(Long productId) {
+        Product product = productDetailCache.get(productId).orElseThrow();
+        return product.getVariants().get(0);
+    }
+}
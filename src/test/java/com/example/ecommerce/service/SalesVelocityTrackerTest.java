@@ -0,0 +1,59 @@
+package com.example.ecommerce.service;
+
+import org.junit.jupiter.api.Test;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SalesVelocityTrackerTest {
+    // 5-minute window: 60 buckets of 5 seconds
+    private static final long BUCKET = 5_000L;
+
+    @Test
+    public void salesLeaveTheWindowBucketByBucket() {
+        long start = 1_000_000 * BUCKET;
+        SalesVelocityTracker.Window window = new SalesVelocityTracker.Window(5, start);
+        window.add(start, 3);
+        window.add(start + 10 * BUCKET, 4);
+        assertEquals(7, window.sum(start + 10 * BUCKET));
+
+        // The first sale's bucket is reused 60 buckets later; the second sale is still inside the window
+        assertEquals(7, window.sum(start + 59 * BUCKET));
+        assertEquals(4, window.sum(start + 60 * BUCKET));
+        assertEquals(4, window.sum(start + 69 * BUCKET));
+        assertEquals(0, window.sum(start + 70 * BUCKET));
+    }
+
+    @Test
+    public void windowEmptiesAfterALongGap() {
+        long start = 1_000_000 * BUCKET;
+        SalesVelocityTracker.Window window = new SalesVelocityTracker.Window(5, start);
+        window.add(start, 2);
+        window.add(start + BUCKET, 5);
+        assertEquals(0, window.sum(start + 1000 * BUCKET));
+        window.add(start + 1000 * BUCKET, 1);
+        assertEquals(1, window.sum(start + 1000 * BUCKET));
+    }
+
+    @Test
+    public void idleVariantsAreEvictedOnceEveryWindowIsEmpty() {
+        SalesVelocityTracker tracker = new SalesVelocityTracker();
+        long start = 1_000_000 * 60_000L;
+        tracker.addLocal(Map.of(1L, 2, 2L, 1), start);
+        tracker.addLocal(Map.of(2L, 1), start + 30 * 60_000L);
+
+        // Both still within the 1-hour window
+        tracker.evictIdle(start + 59 * 60_000L);
+        assertEquals(2, tracker.windowsByVariant.size());
+
+        // Variant 1 has nothing left in either window; variant 2 sold half an hour later
+        tracker.evictIdle(start + 61 * 60_000L);
+        assertFalse(tracker.windowsByVariant.containsKey(1L));
+        assertTrue(tracker.windowsByVariant.containsKey(2L));
+
+        tracker.evictIdle(start + 91 * 60_000L);
+        assertTrue(tracker.windowsByVariant.isEmpty());
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.ecommerce.smoke;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import java.io.File;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Starts the native executable against the PostgreSQL and Redis in application.properties and walks the paths
+ * that depend on native-image hints: registration (JPA, entity JSON), login (JJWT), an authenticated request
+ * (Spring Security filter chain) and a price quote (PriceResult, Money). Prints time to first response and RSS.
+ *
+ * Runs only with the native profile: mvn -Pnative verify [-Dnative.args="--spring.datasource.url=..."]
+ */
+public class NativeImageSmokeTest {
+    private static final String EXECUTABLE = System.getProperty("native.executable", "target/ecommerce");
+    private static final String ARGS = System.getProperty("native.args", "");
+    private static final Duration STARTUP_TIMEOUT = Duration.ofSeconds(Long.getLong("native.startup-timeout-seconds", 30));
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final HttpClient http = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(2)).build();
+    private static Process process;
+    private static String baseUrl;
+
+    @BeforeAll
+    static void start() throws Exception {
+        File executable = new File(EXECUTABLE);
+        assertTrue(executable.canExecute(), "Native executable not found: " + executable.getAbsolutePath());
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        baseUrl = "http://localhost:" + port;
+        List<String> command = new ArrayList<>(List.of(executable.getAbsolutePath(), "--server.port=" + port));
+        if (!ARGS.isBlank()) command.addAll(Arrays.asList(ARGS.trim().split("\\s+")));
+        long started = System.nanoTime();
+        process = new ProcessBuilder(command).inheritIO().start();
+
+        // Any response means the context is refreshed and Tomcat is accepting requests
+        long deadline = started + STARTUP_TIMEOUT.toNanos();
+        while (true) {
+            if (!process.isAlive()) fail("Native executable exited with " + process.exitValue());
+            try {
+                http.send(HttpRequest.newBuilder(URI.create(baseUrl + "/actuator/health")).build(),
+                    HttpResponse.BodyHandlers.discarding());
+                break;
+            } catch (ConnectException e) {
+                assertTrue(System.nanoTime() < deadline, "Not accepting requests after " + STARTUP_TIMEOUT);
+                Thread.sleep(20);
+            }
+        }
+        System.out.printf("Native executable answering after %d ms, RSS %s%n",
+            Duration.ofNanos(System.nanoTime() - started).toMillis(), residentSetSize(process.pid()));
+    }
+
+    @AfterAll
+    static void stop() throws InterruptedException {
+        if (process == null) return;
+        System.out.printf("RSS after smoke test: %s%n", residentSetSize(process.pid()));
+        process.destroy();
+        process.waitFor();
+    }
+
+    @Test
+    public void servesAuthenticatedRequestsAndPriceQuotes() throws Exception {
+        String run = "native-smoke-" + System.currentTimeMillis();
+        HttpResponse<String> registered = send("POST", "/auth/register", null,
+            "{\"email\":\"" + run + "@example.com\",\"password\":\"smoke-password\",\"tier\":\"GOLD\"}");
+        assertEquals(201, registered.statusCode(), registered.body());
+        assertTrue(objectMapper.readTree(registered.body()).path("id").isNumber(), registered.body());
+
+        HttpResponse<String> login = send("POST", "/auth/login", null,
+            "{\"email\":\"" + run + "@example.com\",\"password\":\"smoke-password\"}");
+        assertEquals(200, login.statusCode(), login.body());
+        String token = login.body();
+
+        HttpResponse<String> health = send("GET", "/actuator/health", token, null);
+        assertEquals(200, health.statusCode(), health.body());
+        assertEquals("UP", objectMapper.readTree(health.body()).path("status").asText(), health.body());
+
+        HttpResponse<String> product = send("POST", "/products", token,
+            "{\"name\":\"" + run + "\",\"slug\":\"" + run + "\",\"basePrice\":19.99,\"status\":\"ACTIVE\"}");
+        assertEquals(201, product.statusCode(), product.body());
+        long productId = objectMapper.readTree(product.body()).path("id").asLong();
+        try {
+            HttpResponse<String> price = send("GET", "/products/" + productId + "/price?quantity=2&userTier=GOLD", token, null);
+            assertEquals(200, price.statusCode(), price.body());
+            JsonNode quote = objectMapper.readTree(price.body());
+            assertEquals("19.99", quote.path("basePrice").asText(), price.body());
+            assertTrue(quote.path("finalUnitPrice").isNumber() && quote.path("totalPrice").isNumber(), price.body());
+            assertTrue(quote.path("appliedRules").isArray(), price.body());
+        } finally {
+            send("DELETE", "/products/" + productId, token, null);
+        }
+    }
+
+    private static HttpResponse<String> send(String method, String path, String token, String json)
+            throws IOException, InterruptedException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(Duration.ofSeconds(10))
+            .method(method, json == null ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofString(json));
+        if (json != null) request.header("Content-Type", "application/json");
+        if (token != null) request.header("Authorization", "Bearer " + token);
+        return http.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    // VmRSS from /proc on Linux; elsewhere it is not reported
+    private static String residentSetSize(long pid) {
+        try {
+            for (String line : Files.readAllLines(Path.of("/proc", Long.toString(pid), "status"))) {
+                if (line.startsWith("VmRSS:")) return line.substring(6).trim();
+            }
+        } catch (IOException e) {
+            // Not Linux, or the process is gone
+        }
+        return "n/a";
+    }
+}
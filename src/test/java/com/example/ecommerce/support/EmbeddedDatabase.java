@@ -0,0 +1,78 @@
+package com.example.ecommerce.support;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * One embedded PostgreSQL per test JVM, created from db-schema.sql, for tests that need the real database.
+ * Call {@link #register} from a @DynamicPropertySource method; {@link #registerReplica} adds a second, independent
+ * instance as the only read replica, so tests can give it different (stale) rows.
+ */
+public final class EmbeddedDatabase {
+    private static EmbeddedPostgres postgres;
+    private static EmbeddedPostgres replica;
+
+    private EmbeddedDatabase() {
+    }
+
+    public static synchronized void register(DynamicPropertyRegistry registry, int poolSize) {
+        if (postgres == null) {
+            postgres = start();
+        }
+        String url = postgres.getJdbcUrl("postgres", "postgres") + "&reWriteBatchedInserts=true";
+        registry.add("spring.datasource.url", () -> url);
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "postgres");
+        registry.add("spring.datasource.hikari.maximum-pool-size", () -> poolSize);
+        // Each test context would otherwise spend up to warmup.max-seconds quoting whatever earlier tests inserted
+        registry.add("warmup.enabled", () -> false);
+        // Hibernate only resolves the classpath: cache URI inside the packaged jar; point it at the file instead
+        registry.add("spring.jpa.properties.hibernate.javax.cache.uri",
+            () -> EmbeddedDatabase.class.getResource("/hibernate-jcache.conf").toString());
+    }
+
+    public static synchronized void registerReplica(DynamicPropertyRegistry registry, int maxLagSeconds) {
+        if (replica == null) {
+            replica = start();
+        }
+        String url = replica.getJdbcUrl("postgres", "postgres");
+        registry.add("datasource.replica.urls", () -> url);
+        registry.add("datasource.replica.max-lag-seconds", () -> maxLagSeconds);
+    }
+
+    /**
+     * @return The replica started by {@link #registerReplica}, for writing rows the primary does not have
+     */
+    public static synchronized DataSource replicaDataSource() {
+        return replica.getPostgresDatabase();
+    }
+
+    private static EmbeddedPostgres start() {
+        EmbeddedPostgres instance;
+        try {
+            instance = EmbeddedPostgres.builder().start();
+            try (Connection con = instance.getPostgresDatabase().getConnection(); Statement st = con.createStatement()) {
+                st.execute(Files.readString(Path.of("db-schema.sql")));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (SQLException e) {
+            throw new IllegalStateException("Failed to create the embedded database", e);
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                instance.close();
+            } catch (IOException ignored) {
+            }
+        }));
+        return instance;
+    }
+}
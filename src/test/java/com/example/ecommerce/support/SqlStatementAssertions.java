@@ -0,0 +1,40 @@
+package com.example.ecommerce.support;
+
+import com.example.ecommerce.config.SqlStatistics;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Fails a test when the code under test executes more SQL statements than its budget. The failure lists the
+ * statements by execution count, so an N+1 shows up as one statement repeated per row.
+ */
+public final class SqlStatementAssertions {
+
+    private SqlStatementAssertions() {
+    }
+
+    public static SqlStatistics assertMaxStatements(int budget, Runnable action) {
+        SqlStatistics statistics = SqlStatistics.capture(action);
+        check(budget, statistics);
+        return statistics;
+    }
+
+    public static <T> T assertMaxStatements(int budget, Supplier<T> action) {
+        SqlStatistics.Captured<T> captured = SqlStatistics.capture(action);
+        check(budget, captured.statistics);
+        return captured.result;
+    }
+
+    private static void check(int budget, SqlStatistics statistics) {
+        if (statistics.getStatements() <= budget) return;
+        String breakdown = statistics.getExecutionsBySql().entrySet().stream()
+            .sorted(Map.Entry.<String, Integer>comparingByValue(Comparator.reverseOrder()))
+            .map(e -> "  " + e.getValue() + "x " + e.getKey())
+            .collect(Collectors.joining("\n"));
+        fail("Expected at most " + budget + " SQL statements but " + statistics + ":\n" + breakdown);
+    }
+}
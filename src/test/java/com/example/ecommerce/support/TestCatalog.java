@@ -0,0 +1,40 @@
+package com.example.ecommerce.support;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Inserts users, products and variants with plain SQL for tests that share one embedded database. Names, slugs
+ * and SKUs start with a per-instance run prefix, so tests and repeated runs never collide on unique columns.
+ */
+public final class TestCatalog {
+    private final JdbcTemplate jdbcTemplate;
+    private final String run;
+    private int sequence;
+
+    public TestCatalog(JdbcTemplate jdbcTemplate, String prefix) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.run = prefix + "-" + System.nanoTime();
+    }
+
+    public Long user(String tier) {
+        return jdbcTemplate.queryForObject("INSERT INTO users (email, password, tier) VALUES (?, 'x', ?) RETURNING id",
+            Long.class, next() + "@example.com", tier);
+    }
+
+    /** An active product with a base price of 20 */
+    public Long product() {
+        String slug = next();
+        return jdbcTemplate.queryForObject("INSERT INTO products (name, slug, base_price, status) "
+            + "VALUES (?, ?, 20, 'ACTIVE') RETURNING id", Long.class, slug, slug);
+    }
+
+    public Long variant(Long productId, int stockQuantity, int reservedQuantity) {
+        return jdbcTemplate.queryForObject("INSERT INTO variants (sku, title, stock_quantity, reserved_quantity, "
+            + "product_id) VALUES (?, 'Test variant', ?, ?, ?) RETURNING id", Long.class, next(), stockQuantity,
+            reservedQuantity, productId);
+    }
+
+    private String next() {
+        return run + "-" + (++sequence);
+    }
+}